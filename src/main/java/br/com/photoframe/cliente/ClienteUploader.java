@@ -7,8 +7,11 @@ import java.awt.Toolkit;
 import java.awt.datatransfer.StringSelection;
 import java.awt.event.ActionEvent;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.rmi.NotBoundException;
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
@@ -29,10 +32,26 @@ import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
 
 import br.com.photoframe.compartilhado.GaleriaRemota;
+import br.com.photoframe.compartilhado.PaginaArquivos;
 import br.com.photoframe.compartilhado.PlaybackConfig;
+import br.com.photoframe.compartilhado.core.HashUtil;
 
 public class ClienteUploader extends JFrame {
-    private transient GaleriaRemota stub;
+    private transient volatile GaleriaRemota stub;
+    // Upload em partes: tamanho do bloco e tentativas de retomada
+    private static final int CHUNK_BYTES = 1024 * 1024;
+    private static final int MAX_UPLOAD_RETRIES = 5;
+    private static final int PAGE_SIZE = 500; // itens por chamada de listFilesByClient
+    private static final int FORCED_SUGGESTIONS = 50; // sugestões de "Forçar arquivo" por busca de prefixo
+    // Versão da configuração de reprodução já mostrada nos controles (-1 = nenhuma)
+    private volatile long controlsVersion = -1;
+    // Carga em andamento de cada lista (só no EDT); uma nova carga cancela a anterior
+    private SwingWorker<?, ?> myListLoader, forcedLoader;
+    // "Forçar arquivo" sugere pelo prefixo digitado, como o uploader web: espera a digitação parar e busca
+    // uma página só, em vez de trazer o catálogo inteiro para o combo (só no EDT)
+    private final javax.swing.Timer forcedSuggestTimer = new javax.swing.Timer(250, ev -> loadForcedSuggestions());
+    private String forcedQuery; // prefixo da última busca (null = nenhuma ainda)
+    private boolean updatingForced; // modelo trocado pela própria busca: não dispara outra
         private final JTextField hostField = new JTextField("", 16);
     private final JTextField clientIdField = new JTextField("", 12);
     private static final String PREF_CLIENT_ID = "clientId";
@@ -117,7 +136,7 @@ public class ClienteUploader extends JFrame {
         JPanel r5b = new JPanel(new FlowLayout(FlowLayout.LEFT));
     r5b.add(loopVideoCheck); r5b.add(videoPausedCheck); r5b.add(mutedCheck);
         JPanel r6 = new JPanel(new FlowLayout(FlowLayout.LEFT));
-        r6.add(new JLabel("Data (yyyy-MM-dd):")); dateField.setPreferredSize(new Dimension(110, 24)); r6.add(dateField);
+        r6.add(new JLabel("Data (dia, yyyy-MM, yyyy, yyyy-Www ou A..B):")); dateField.setPreferredSize(new Dimension(110, 24)); r6.add(dateField);
         r6.add(new JLabel("Forçar arquivo:")); forcedCombo.setPreferredSize(new Dimension(280, 24)); r6.add(forcedCombo);
         JPanel r7 = new JPanel(new FlowLayout(FlowLayout.LEFT));
         r7.add(applyCtrlButton); r7.add(prevButton); r7.add(nextButton);
@@ -138,6 +157,15 @@ public class ClienteUploader extends JFrame {
         showByDateButton.addActionListener(this::onShowByDate);
         copyIdButton.addActionListener(this::onCopyId);
         newIdButton.addActionListener(this::onGenerateNewId);
+        forcedCombo.setEditable(true);
+        forcedSuggestTimer.setRepeats(false);
+        ((javax.swing.text.JTextComponent) forcedCombo.getEditor().getEditorComponent()).getDocument()
+                .addDocumentListener(new javax.swing.event.DocumentListener() {
+                    private void changed() { if (!updatingForced) forcedSuggestTimer.restart(); }
+                    @Override public void insertUpdate(javax.swing.event.DocumentEvent ev) { changed(); }
+                    @Override public void removeUpdate(javax.swing.event.DocumentEvent ev) { changed(); }
+                    @Override public void changedUpdate(javax.swing.event.DocumentEvent ev) { changed(); }
+                });
         applyCtrlButton.addActionListener(ev -> applyControls());
         prevButton.addActionListener(ev -> doPrevious());
         nextButton.addActionListener(ev -> doNext());
@@ -167,22 +195,86 @@ public class ClienteUploader extends JFrame {
         sendButton.setEnabled(false);
         selectButton.setEnabled(false);
         setStatus("Enviando...");
-        new SwingWorker<Boolean, Void>() {
+        final Path file = selectedFile;
+        final String cid = clientIdField.getText().trim();
+        final String host = hostField.getText().trim();
+        new SwingWorker<Boolean, String>() {
             private String message = "";
             @Override protected Boolean doInBackground() {
                 try {
-                    byte[] data = Files.readAllBytes(selectedFile);
-                    String name = selectedFile.getFileName().toString();
-                    boolean ok = stub.uploadFile(name, data, clientIdField.getText().trim());
+                    String name = file.getFileName().toString();
+                    long size = Files.size(file);
+                    publish("Calculando hash...");
+                    String md5 = HashUtil.md5Hex(file);
+                    boolean ok = sendInChunks(file, name, size, md5, cid, host);
                     message = ok ? "Upload concluído!" : "Não foi possível enviar.";
                     return ok;
                 } catch (RemoteException ex) {
                     message = "Erro de comunicação: " + ex.getMessage();
                 } catch (IOException ex) {
                     message = "Erro de IO: " + ex.getMessage();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    message = "Envio interrompido.";
                 }
                 return false;
             }
+
+            /**
+             * Envia o arquivo em blocos pela sessão de upload do servidor, lendo do disco
+             * um bloco por vez. Em falha de comunicação ou de gravação no servidor reconecta, pergunta
+             * quanto o servidor já recebeu e continua dali; se a sessão sumiu (servidor reiniciado), recomeça.
+             * Falhas e blocos recusados sem avanço contam para o limite de tentativas.
+             * Se só a resposta do commit se perdeu, o servidor informa a sessão como completa e
+             * a repetição do commit apenas confirma, sem reenviar nem duplicar o arquivo.
+             */
+            private boolean sendInChunks(Path file, String name, long size, String md5, String cid, String host)
+                    throws IOException, InterruptedException {
+                String uploadId = null;
+                int failures = 0;
+                ByteBuffer buf = ByteBuffer.allocate(CHUNK_BYTES);
+                try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                    while (true) {
+                        try {
+                            if (uploadId == null) {
+                                uploadId = stub.beginUpload(name, size, cid);
+                                if (uploadId == null) return false;
+                            }
+                            long offset = stub.getUploadedLength(uploadId);
+                            while (offset >= 0 && offset < size) {
+                                buf.clear();
+                                int n = ch.read(buf, offset);
+                                if (n <= 0) throw new IOException("Leitura inesperada no fim do arquivo");
+                                byte[] chunk = java.util.Arrays.copyOf(buf.array(), n);
+                                long received = stub.appendUploadChunk(uploadId, offset, chunk);
+                                if (received >= 0 && received <= offset) {
+                                    // Bloco recusado sem avanço: conta como falha em vez de reenviar para sempre
+                                    if (++failures > MAX_UPLOAD_RETRIES) return false;
+                                    publish("Servidor recusou o bloco, tentando de novo (" + failures + "/" + MAX_UPLOAD_RETRIES + ")...");
+                                    Thread.sleep(2000L * failures);
+                                } else if (received >= 0) {
+                                    publish("Enviando... " + (100 * received / size) + "%");
+                                }
+                                offset = received;
+                            }
+                            if (offset < 0) { // sessão não existe mais no servidor
+                                uploadId = null;
+                                if (++failures > MAX_UPLOAD_RETRIES) return false;
+                                continue;
+                            }
+                            return stub.commitUpload(uploadId, md5);
+                        } catch (RemoteException ex) {
+                            if (++failures > MAX_UPLOAD_RETRIES) throw ex;
+                            publish("Falha no envio, retomando (" + failures + "/" + MAX_UPLOAD_RETRIES + ")...");
+                            Thread.sleep(2000L * failures);
+                            reconnectQuietly(host);
+                        }
+                    }
+                }
+            }
+            @Override protected void process(List<String> chunks) {
+                if (!chunks.isEmpty()) setStatus(chunks.get(chunks.size() - 1));
+            }
             @Override protected void done() {
                 setStatus(message);
                 selectButton.setEnabled(true);
@@ -194,24 +286,43 @@ public class ClienteUploader extends JFrame {
         }.execute();
     }
 
+    // Nova consulta ao registry após queda de conexão (chamado fora do EDT)
+    private void reconnectQuietly(String host) {
+        try {
+            Registry registry = LocateRegistry.getRegistry(host, 1099);
+            stub = (GaleriaRemota) registry.lookup("GaleriaService");
+        } catch (RemoteException | NotBoundException ignore) { }
+    }
+
     private void onLoadMyList(ActionEvent e) {
         if (stub == null) { setStatus("Conecte-se primeiro."); return; }
         String cid = clientIdField.getText().trim();
         if (cid.isEmpty()) { setStatus("Informe seu ID."); return; }
-        new SwingWorker<List<String>, Void>(){
-            @Override protected List<String> doInBackground(){
-                try { return stub.getFileListByClient(cid); } catch (RemoteException ex) { return java.util.Collections.emptyList(); }
+        if (myListLoader != null) myListLoader.cancel(false);
+        var model = (javax.swing.DefaultListModel<String>) myList.getModel();
+        model.clear();
+        // Página a página: a lista vai aparecendo enquanto o restante é buscado
+        myListLoader = new SwingWorker<Boolean, List<String>>(){
+            @Override protected Boolean doInBackground(){
+                try {
+                    String cursor = null;
+                    do {
+                        PaginaArquivos page = stub.listFilesByClient(cid, cursor, PAGE_SIZE, null, null);
+                        if (!page.items.isEmpty()) publish(page.items);
+                        cursor = page.nextCursor;
+                    } while (cursor != null && !isCancelled());
+                    return true;
+                } catch (RemoteException ex) { return false; }
             }
+            @Override protected void process(List<List<String>> pages){ if (isCancelled()) return; for (List<String> p: pages) for (String s: p) model.addElement(s); }
             @Override protected void done(){
+                if (isCancelled()) return;
                 try {
-                    List<String> items = get();
-                    var model = (javax.swing.DefaultListModel<String>) myList.getModel();
-                    model.clear();
-                    for (String s: items) model.addElement(s);
-                    setStatus(items.size()+" arquivo(s) listado(s).");
+                    setStatus(get() ? model.size()+" arquivo(s) listado(s)." : "Não foi possível carregar a lista.");
                 } catch (java.util.concurrent.ExecutionException | InterruptedException ex) { setStatus("Não foi possível carregar a lista."); }
             }
-        }.execute();
+        };
+        myListLoader.execute();
     }
 
     private void onDeleteSelected(ActionEvent e) {
@@ -228,7 +339,7 @@ public class ClienteUploader extends JFrame {
 
     private void onShowByDate(ActionEvent e) {
         if (stub == null) { setStatus("Conecte-se primeiro."); return; }
-        String date = JOptionPane.showInputDialog(this, "Data (yyyyMMdd, yyyy-MM-dd ou yyyy/MM/dd)\n(Deixe vazio para limpar o filtro):", "" );
+        String date = JOptionPane.showInputDialog(this, "Data (yyyyMMdd, yyyy-MM-dd ou yyyy/MM/dd), mês (yyyy-MM), ano (yyyy),\nsemana (yyyy-Www) ou intervalo (A..B)\n(Deixe vazio para limpar o filtro):", "" );
         if (date == null) return;
         final String d = date.trim();
         new SwingWorker<Boolean, Void>(){
@@ -251,6 +362,7 @@ public class ClienteUploader extends JFrame {
                 try {
                     Registry registry = LocateRegistry.getRegistry(target, 1099);
                     stub = (GaleriaRemota) registry.lookup("GaleriaService");
+                    controlsVersion = -1; // outro servidor: versões de configuração não se comparam
                     message = "Conectado a " + target;
                     return true;
                 } catch (RemoteException | NotBoundException ex) {
@@ -263,7 +375,7 @@ public class ClienteUploader extends JFrame {
                 setStatus(message);
                 connectButton.setEnabled(true);
                 updateSendEnabled();
-                if (stub != null) { syncControlsFromServer(); loadAllFiles(); }
+                if (stub != null) { syncControlsFromServer(); forcedQuery = null; loadForcedSuggestions(); }
             }
         }.execute();
     }
@@ -331,45 +443,64 @@ public class ClienteUploader extends JFrame {
         new SwingWorker<Void, Void>(){
             PlaybackConfig cfg; String d;
             @Override protected Void doInBackground(){
-                try { cfg = stub.getPlaybackConfig(); d = stub.getDisplayDateFilter(); } catch (RemoteException ex) { }
+                // Só relê (e reaplica na UI) quando a versão da configuração mudou
+                try { cfg = stub.getPlaybackConfigIfNewer(controlsVersion); if (cfg != null) d = stub.getDisplayDateFilter(); } catch (RemoteException ex) { }
                 return null;
             }
             @Override protected void done(){
-                if (cfg != null) {
-                    pausedCheck.setSelected(cfg.paused);
-                    int sec = Math.max(1, cfg.intervalMillis/1000); intervalSpinner.setValue(sec);
-                    loopVideoCheck.setSelected(cfg.loopVideo);
-                    videoPausedCheck.setSelected(cfg.videoPaused);
-                    mutedCheck.setSelected(cfg.muted);
-                    if (cfg.forcedRelativePath != null && !cfg.forcedRelativePath.isBlank()) {
-                        forcedCombo.setSelectedItem(cfg.forcedRelativePath);
-                    } else {
-                        forcedCombo.setSelectedItem(null);
-                    }
+                if (cfg == null) return;
+                controlsVersion = cfg.version;
+                pausedCheck.setSelected(cfg.paused);
+                int sec = Math.max(1, cfg.intervalMillis/1000); intervalSpinner.setValue(sec);
+                loopVideoCheck.setSelected(cfg.loopVideo);
+                videoPausedCheck.setSelected(cfg.videoPaused);
+                mutedCheck.setSelected(cfg.muted);
+                if (cfg.forcedRelativePath != null && !cfg.forcedRelativePath.isBlank()) {
+                    forcedCombo.setSelectedItem(cfg.forcedRelativePath);
+                } else {
+                    forcedCombo.setSelectedItem(null);
                 }
                 dateField.setText(d==null?"":d);
             }
         }.execute();
     }
 
-    private void loadAllFiles() {
+    // Texto digitado no combo editável (o item selecionado só muda no Enter/perda de foco)
+    private String forcedText() {
+        Object item = forcedCombo.getEditor().getItem();
+        return item == null ? "" : item.toString().trim();
+    }
+
+    private void loadForcedSuggestions() {
         if (stub == null) return;
-        new SwingWorker<java.util.List<String>, Void>(){
-            @Override protected java.util.List<String> doInBackground(){ try { return stub.getFileList(); } catch(RemoteException ex){ return java.util.Collections.emptyList(); } }
+        String prefix = forcedText();
+        if (prefix.equals(forcedQuery)) return;
+        forcedQuery = prefix;
+        if (forcedLoader != null) forcedLoader.cancel(false);
+        forcedLoader = new SwingWorker<List<String>, Void>(){
+            @Override protected List<String> doInBackground(){
+                try { return stub.listFiles(null, FORCED_SUGGESTIONS, prefix.isEmpty() ? null : prefix, null).items; }
+                catch (RemoteException ex) { return null; }
+            }
             @Override protected void done(){
-                try {
-                    java.util.List<String> all = get();
-                    var model = (javax.swing.DefaultComboBoxModel<String>) forcedCombo.getModel();
-                    model.removeAllElements();
-                    model.addElement("");
-                    for (String s: all) model.addElement(s);
-                } catch (java.util.concurrent.ExecutionException | InterruptedException ex) { }
+                if (isCancelled()) return;
+                List<String> items;
+                try { items = get(); } catch (java.util.concurrent.ExecutionException | InterruptedException ex) { return; }
+                // Resposta atrasada de um prefixo que já mudou: a busca do texto atual vem em seguida
+                if (items == null || !prefix.equals(forcedText())) return;
+                var model = new javax.swing.DefaultComboBoxModel<>(items.toArray(new String[0]));
+                model.setSelectedItem(prefix);
+                updatingForced = true;
+                try { forcedCombo.setModel(model); } finally { updatingForced = false; }
+                if (!items.isEmpty() && forcedCombo.getEditor().getEditorComponent().isFocusOwner()) forcedCombo.showPopup();
             }
-        }.execute();
+        };
+        forcedLoader.execute();
     }
 
     private void applyControls() {
         if (stub == null) { setStatus("Conecte-se primeiro."); return; }
+        String forcedSel = forcedText();
         new SwingWorker<Boolean, Void>(){
             @Override protected Boolean doInBackground(){
                 try {
@@ -381,9 +512,7 @@ public class ClienteUploader extends JFrame {
                     stub.setMuted(mutedCheck.isSelected());
                     String d = dateField.getText().trim();
                     stub.setDisplayDateFilter(d.isEmpty()?null:d);
-                    String forced = (String) forcedCombo.getSelectedItem();
-                    if (forced != null && forced.isBlank()) forced = null;
-                    stub.setForcedDisplayFile(forced);
+                    stub.setForcedDisplayFile(forcedSel.isEmpty() ? null : forcedSel);
                     return true;
                 } catch (RemoteException ex) { return false; }
             }
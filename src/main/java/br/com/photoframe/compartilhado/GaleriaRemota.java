@@ -9,11 +9,65 @@ import java.util.List;
  */
 public interface GaleriaRemota extends Remote {
     boolean uploadFile(String fileName, byte[] fileData, String clientId) throws RemoteException;
+    /**
+     * Upload em partes (retomável): abre uma sessão e devolve seu identificador,
+     * ou null se nome/tamanho forem inválidos ou se o orçamento de uploads em andamento
+     * do servidor estiver esgotado (tente de novo mais tarde).
+     */
+    String beginUpload(String fileName, long totalBytes, String clientId) throws RemoteException;
+    /**
+     * Anexa um bloco na posição informada. O bloco só é gravado se offset for igual ao total já recebido.
+     * Retorna o total recebido após a chamada, ou -1 se a sessão não existe (expirada/servidor reiniciado).
+     * Falha ao gravar no servidor (ex.: disco cheio) lança RemoteException; o total recebido não muda.
+     */
+    long appendUploadChunk(String uploadId, long offset, byte[] chunk) throws RemoteException;
+    /** Total de bytes já recebidos na sessão (-1 se não existe); usado para retomar após falha. */
+    long getUploadedLength(String uploadId) throws RemoteException;
+    /**
+     * Finaliza a sessão conferindo o MD5 esperado e publica o arquivo na galeria.
+     * Idempotente: repetir o commit de uma sessão já publicada (resposta perdida) devolve true sem
+     * publicar de novo, enquanto o servidor lembrar dela (minutos); nesse período
+     * {@link #getUploadedLength} devolve o tamanho total.
+     */
+    boolean commitUpload(String uploadId, String expectedMd5) throws RemoteException;
     byte[] getNextDisplayFile() throws RemoteException;
+    /**
+     * Mesmo slideshow de {@link #getNextDisplayFile()}, mas informando o tamanho da tela (pixels):
+     * imagens vêm na menor versão de exibição pré-gerada (1080p/4K) que cobre a tela, quando disponível.
+     */
+    byte[] getNextDisplayFileForScreen(int width, int height) throws RemoteException;
     byte[] getNextDisplayFileByDate(String date) throws RemoteException;
+    /**
+     * Protocolo por descritor: mesma regra de troca do slideshow, mas devolve só o descritor do item atual
+     * (caminho, hash, tipo, tamanho, dimensões e versão de exibição); null se não há o que exibir.
+     * {@code displayVersion} muda apenas quando o item muda. Imagens indicam a versão (1080p/4K) que cobre a tela.
+     */
+    ItemExibicao getNextDisplayItem(int width, int height) throws RemoteException;
+    /**
+     * Descritor do item que deve entrar na próxima troca, sem avançar o slideshow (para o viewer
+     * baixar e decodificar com antecedência); null se pausado ou sem previsão. {@code displayVersion} vem 0.
+     */
+    ItemExibicao peekNextDisplayItem(int width, int height) throws RemoteException;
+    /**
+     * Long-poll do display: bloqueia até o item mudar ({@code displayVersion != knownVersion}) ou a configuração
+     * de reprodução mudar, e devolve o item atual; null no timeout (limitado a 60 s). Use knownVersion 0 na
+     * primeira chamada. Ativa o relógio do slideshow no servidor (as trocas não dependem mais de polling).
+     */
+    ItemExibicao waitForDisplayChange(long knownVersion, int width, int height, long timeoutMillis) throws RemoteException;
+    /** Bytes do conteúdo de um descritor (renditionHeight 0 = original); null se o hash não existe/não confere. */
+    byte[] getContentByHash(String contentHash, int renditionHeight) throws RemoteException;
     boolean verifyFileIntegrity(String fileName, String hash) throws RemoteException;
+    /** Catálogo inteiro numa única lista; para galerias grandes prefira {@link #listFiles}. */
     List<String> getFileList() throws RemoteException;
     List<String> getFileListByClient(String clientId) throws RemoteException;
+    /**
+     * Listagem paginada do catálogo: até {@code limit} caminhos (máx. 1000) depois de {@code cursor}
+     * (null = início), opcionalmente só os que começam com {@code prefix} (ex.: "2024/05/") e do tipo
+     * {@code type} ("image", "video" ou um media type completo; null = todos).
+     */
+    PaginaArquivos listFiles(String cursor, int limit, String prefix, String type) throws RemoteException;
+    /** Mesma paginação de {@link #listFiles}, restrita aos arquivos do cliente. */
+    PaginaArquivos listFilesByClient(String clientId, String cursor, int limit, String prefix, String type) throws RemoteException;
     boolean deleteFile(String clientId, String relativePath) throws RemoteException;
     /**
      * Lê bytes do arquivo relativo se e somente se o cliente informado for o dono.
@@ -29,6 +83,8 @@ public interface GaleriaRemota extends Remote {
     void setVideoPaused(boolean paused) throws RemoteException;
     void setMuted(boolean muted) throws RemoteException;
     PlaybackConfig getPlaybackConfig() throws RemoteException;
+    /** Configuração atual só se {@code version} dela for maior que a informada; null = não mudou. */
+    PlaybackConfig getPlaybackConfigIfNewer(long version) throws RemoteException;
     void next() throws RemoteException;
     void previous() throws RemoteException;
 }
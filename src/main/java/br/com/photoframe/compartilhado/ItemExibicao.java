@@ -0,0 +1,26 @@
+package br.com.photoframe.compartilhado;
+
+import java.io.Serializable;
+
+/**
+ * Descritor do item em exibição (protocolo por descritor: o viewer só baixa o conteúdo que ainda não tem).
+ *
+ * O conteúdo é obtido com {@code getContentByHash(contentHash, renditionHeight)}; o par
+ * (contentHash, renditionHeight) identifica exatamente os bytes e pode ser usado como chave de cache.
+ */
+public class ItemExibicao implements Serializable {
+    private static final long serialVersionUID = 1L;
+    public String relativePath;
+    public String contentHash;     // MD5 do arquivo original (hex maiúsculo)
+    public String mediaType;       // image/jpeg, image/png, video/mp4...
+    public int renditionHeight;    // 0 = original; >0 = versão de exibição (ex.: 1080, 2160)
+    public long sizeBytes;         // tamanho do conteúdo a baixar (original ou versão)
+    public int width;              // dimensões do original (0 se desconhecidas, ex.: vídeo)
+    public int height;
+    public long displayVersion;    // cresce a cada troca de item no display
+
+    public boolean isVideo() { return mediaType != null && mediaType.startsWith("video/"); }
+
+    /** Chave do conteúdo (hash + versão), útil para caches no cliente. */
+    public String contentKey() { return renditionHeight == 0 ? contentHash : contentHash + "_" + renditionHeight; }
+}
@@ -0,0 +1,20 @@
+package br.com.photoframe.compartilhado;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Página de uma listagem de arquivos (caminhos relativos em ordem crescente, ou seja, cronológica).
+ *
+ * Para a página seguinte, repita a consulta com {@code cursor = nextCursor}. O cursor é o último caminho
+ * examinado, então a paginação continua correta mesmo com envios/exclusões entre as chamadas.
+ * Com filtro de tipo a página pode vir com menos itens que o limite (ou vazia) e ainda assim ter continuação.
+ */
+public class PaginaArquivos implements Serializable {
+    private static final long serialVersionUID = 1L;
+    public List<String> items = new ArrayList<>();
+    public String nextCursor;      // null = fim da listagem
+
+    public boolean hasMore() { return nextCursor != null; }
+}
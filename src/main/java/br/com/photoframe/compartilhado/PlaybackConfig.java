@@ -12,6 +12,8 @@ public class PlaybackConfig implements Serializable {
     public boolean loopVideo;      // quando true, vídeos repetem em loop no viewer
     public boolean videoPaused;    // quando true, pausa apenas o player de vídeo (sem pausar slideshow)
     public boolean muted;          // quando true, reprodutor de vídeo fica sem som
+    // Cresce a cada alteração (parte do horário de início do servidor, então não volta após reinício)
+    public long version;
 
     public PlaybackConfig copy() {
         PlaybackConfig c = new PlaybackConfig();
@@ -22,6 +24,7 @@ public class PlaybackConfig implements Serializable {
         c.loopVideo = this.loopVideo;
         c.videoPaused = this.videoPaused;
     c.muted = this.muted;
+        c.version = this.version;
         return c;
     }
 }
@@ -1,5 +1,9 @@
 package br.com.photoframe.compartilhado.core;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Locale;
@@ -19,23 +23,60 @@ public class HashUtil {
     public static String md5Hex(byte[] data) {
         if (data == null) return null;
         
-        try {
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            byte[] digest = md.digest(data);
-            StringBuilder sb = new StringBuilder(digest.length * 2);
-            
-            // Converte cada byte para hexadecimal
-            for (byte b : digest) {
-                sb.append(String.format(Locale.ROOT, "%02x", b));
+        MessageDigest md = newMd5();
+        return toHex(md.digest(data));
+    }
+    
+    /**
+     * Calcula hash MD5 de um arquivo lendo-o em blocos (sem carregar tudo em memória)
+     * 
+     * @param file caminho do arquivo
+     * @return string MD5 em hexadecimal maiúsculo
+     * @throws IOException se o arquivo não puder ser lido
+     */
+    public static String md5Hex(Path file) throws IOException {
+        MessageDigest md = newMd5();
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buf = new byte[64 * 1024];
+            int r;
+            while ((r = in.read(buf)) != -1) {
+                md.update(buf, 0, r);
             }
-            
-            return sb.toString().toUpperCase(Locale.ROOT);
+        }
+        return toHex(md.digest());
+    }
+    
+    /**
+     * Cria um MessageDigest MD5 para cálculo incremental (streaming)
+     * 
+     * @return instância nova de MessageDigest MD5
+     */
+    public static MessageDigest newMd5() {
+        try {
+            return MessageDigest.getInstance("MD5");
         } catch (NoSuchAlgorithmException e) {
             // MD5 sempre deve estar disponível
             throw new RuntimeException("MD5 não disponível", e);
         }
     }
     
+    /**
+     * Converte um digest para hexadecimal maiúsculo (mesmo formato de md5Hex)
+     * 
+     * @param digest bytes do digest
+     * @return string hexadecimal maiúscula
+     */
+    public static String toHex(byte[] digest) {
+        StringBuilder sb = new StringBuilder(digest.length * 2);
+        
+        // Converte cada byte para hexadecimal
+        for (byte b : digest) {
+            sb.append(String.format(Locale.ROOT, "%02x", b));
+        }
+        
+        return sb.toString().toUpperCase(Locale.ROOT);
+    }
+    
     /**
      * Valida se hash calculado confere com esperado
      * 
@@ -0,0 +1,52 @@
+package br.com.photoframe.servidor;
+
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache de verificações de integridade já feitas: caminho → (tamanho, mtime, md5 conferido).
+ *
+ * Se o arquivo continua com o mesmo tamanho e a mesma data de modificação desde que o MD5 foi
+ * conferido, o caminho de exibição não precisa recalcular o hash. Alterações silenciosas que não
+ * mexem em tamanho/mtime (ex.: bit rot) são pegas pelo {@link VerificadorIntegridade}.
+ * Fica só em memória: após reiniciar, cada arquivo é conferido de novo uma vez.
+ */
+class CacheVerificacao {
+    private static final class Carimbo {
+        final long tamanho;
+        final long mtime;
+        final String md5;
+        Carimbo(long tamanho, long mtime, String md5) { this.tamanho = tamanho; this.mtime = mtime; this.md5 = md5; }
+    }
+
+    private final Map<String, Carimbo> carimbos = new ConcurrentHashMap<>();
+
+    /** true se o arquivo foi conferido contra {@code md5} e não mudou desde então. */
+    boolean confere(String rel, BasicFileAttributes attrs, String md5) {
+        Carimbo c = carimbos.get(rel);
+        return c != null && md5 != null && c.tamanho == attrs.size()
+                && c.mtime == attrs.lastModifiedTime().toMillis() && c.md5.equalsIgnoreCase(md5);
+    }
+
+    /** MD5 conferido do arquivo, se ele não mudou desde a conferência; senão null. */
+    String md5Conferido(String rel, BasicFileAttributes attrs) {
+        Carimbo c = carimbos.get(rel);
+        return c != null && c.tamanho == attrs.size() && c.mtime == attrs.lastModifiedTime().toMillis() ? c.md5 : null;
+    }
+
+    /** true se o arquivo já foi conferido e o tamanho ou o mtime mudaram desde então (conteúdo regravado). */
+    boolean mudou(String rel, BasicFileAttributes attrs) {
+        Carimbo c = carimbos.get(rel);
+        return c != null && (c.tamanho != attrs.size() || c.mtime != attrs.lastModifiedTime().toMillis());
+    }
+
+    /** Registra que o conteúdo com estes atributos tem o MD5 informado. */
+    void registrar(String rel, BasicFileAttributes attrs, String md5) {
+        carimbos.put(rel, new Carimbo(attrs.size(), attrs.lastModifiedTime().toMillis(), md5));
+    }
+
+    void esquecer(String rel) {
+        carimbos.remove(rel);
+    }
+}
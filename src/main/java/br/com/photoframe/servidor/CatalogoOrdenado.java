@@ -0,0 +1,179 @@
+package br.com.photoframe.servidor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Catálogo ordenado de caminhos relativos (substitui a ArrayList + Collections.sort).
+ *
+ * Implementado como treap com tamanho de subárvore em cada nó (árvore de estatística de ordem):
+ * inserção, remoção, busca, posição de uma chave ({@link #rank(String)}) e chave numa posição
+ * ({@link #get(int)}) custam O(log n) esperado. Como os caminhos começam com {@code yyyy/MM/dd/},
+ * a ordem lexicográfica também é a ordem cronológica da galeria.
+ *
+ * Não é thread-safe: o acesso é protegido pelo lock do {@link ServidorGaleria}.
+ */
+class CatalogoOrdenado {
+    private static final class No {
+        final String chave;
+        final int prioridade;
+        int tamanho = 1;
+        No esq, dir;
+        No(String chave, int prioridade) { this.chave = chave; this.prioridade = prioridade; }
+    }
+
+    private final Random random = new Random();
+    private No raiz;
+
+    int size() { return tamanho(raiz); }
+    boolean isEmpty() { return raiz == null; }
+    void clear() { raiz = null; }
+
+    boolean contains(String chave) {
+        No t = raiz;
+        while (t != null) {
+            int c = chave.compareTo(t.chave);
+            if (c == 0) return true;
+            t = c < 0 ? t.esq : t.dir;
+        }
+        return false;
+    }
+
+    /** Insere a chave; retorna false se ela já existia. */
+    boolean add(String chave) {
+        if (contains(chave)) return false;
+        No[] partes = dividir(raiz, chave);
+        raiz = juntar(juntar(partes[0], new No(chave, random.nextInt())), partes[1]);
+        return true;
+    }
+
+    /** Remove a chave; retorna false se ela não existia. */
+    boolean remove(String chave) {
+        if (!contains(chave)) return false;
+        raiz = remover(raiz, chave);
+        return true;
+    }
+
+    /** Chave na posição {@code indice} (0 = menor). */
+    String get(int indice) {
+        if (indice < 0 || indice >= size()) throw new IndexOutOfBoundsException(indice);
+        No t = raiz;
+        while (true) {
+            int e = tamanho(t.esq);
+            if (indice < e) t = t.esq;
+            else if (indice == e) return t.chave;
+            else { indice -= e + 1; t = t.dir; }
+        }
+    }
+
+    /** Quantidade de chaves estritamente menores que {@code chave} (posição dela, se existir). */
+    int rank(String chave) {
+        int r = 0;
+        No t = raiz;
+        while (t != null) {
+            if (chave.compareTo(t.chave) <= 0) t = t.esq;
+            else { r += tamanho(t.esq) + 1; t = t.dir; }
+        }
+        return r;
+    }
+
+    /** Menor chave estritamente maior que {@code chave} (ou null). */
+    String higher(String chave) {
+        String res = null;
+        No t = raiz;
+        while (t != null) {
+            if (t.chave.compareTo(chave) > 0) { res = t.chave; t = t.esq; }
+            else t = t.dir;
+        }
+        return res;
+    }
+
+    /** Menor chave maior ou igual a {@code chave} (ou null). */
+    String ceiling(String chave) {
+        String res = null;
+        No t = raiz;
+        while (t != null) {
+            if (t.chave.compareTo(chave) >= 0) { res = t.chave; t = t.esq; }
+            else t = t.dir;
+        }
+        return res;
+    }
+
+    /** Maior chave estritamente menor que {@code chave} (ou null). */
+    String lower(String chave) {
+        String res = null;
+        No t = raiz;
+        while (t != null) {
+            if (t.chave.compareTo(chave) < 0) { res = t.chave; t = t.dir; }
+            else t = t.esq;
+        }
+        return res;
+    }
+
+    String first() { No t = raiz; if (t == null) return null; while (t.esq != null) t = t.esq; return t.chave; }
+    String last() { No t = raiz; if (t == null) return null; while (t.dir != null) t = t.dir; return t.chave; }
+
+    /** Percorre as chaves em ordem crescente. */
+    void forEach(Consumer<String> acao) {
+        Deque<No> pilha = new ArrayDeque<>();
+        No t = raiz;
+        while (t != null || !pilha.isEmpty()) {
+            while (t != null) { pilha.push(t); t = t.esq; }
+            t = pilha.pop();
+            acao.accept(t.chave);
+            t = t.dir;
+        }
+    }
+
+    List<String> toList() {
+        List<String> out = new ArrayList<>(size());
+        forEach(out::add);
+        return out;
+    }
+
+    private static int tamanho(No t) { return t == null ? 0 : t.tamanho; }
+
+    private static void atualizar(No t) { t.tamanho = 1 + tamanho(t.esq) + tamanho(t.dir); }
+
+    // [0] = chaves < chave, [1] = chaves >= chave
+    private static No[] dividir(No t, String chave) {
+        if (t == null) return new No[] { null, null };
+        if (t.chave.compareTo(chave) < 0) {
+            No[] p = dividir(t.dir, chave);
+            t.dir = p[0];
+            atualizar(t);
+            return new No[] { t, p[1] };
+        }
+        No[] p = dividir(t.esq, chave);
+        t.esq = p[1];
+        atualizar(t);
+        return new No[] { p[0], t };
+    }
+
+    // Todas as chaves de a são menores que as de b
+    private static No juntar(No a, No b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.prioridade > b.prioridade) {
+            a.dir = juntar(a.dir, b);
+            atualizar(a);
+            return a;
+        }
+        b.esq = juntar(a, b.esq);
+        atualizar(b);
+        return b;
+    }
+
+    private static No remover(No t, String chave) {
+        int c = chave.compareTo(t.chave);
+        if (c == 0) return juntar(t.esq, t.dir);
+        if (c < 0) t.esq = remover(t.esq, chave);
+        else t.dir = remover(t.dir, chave);
+        atualizar(t);
+        return t;
+    }
+}
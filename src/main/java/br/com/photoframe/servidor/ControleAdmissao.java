@@ -0,0 +1,94 @@
+package br.com.photoframe.servidor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Controle de admissão dos uploads HTTP (/upload e /upload-batch), aplicado antes de ler o corpo, e do
+ * espaço reservado pelas sessões RMI em partes ({@code beginUpload}), que dividem o mesmo orçamento de bytes.
+ *
+ * Três limites, todos checados de uma vez ao admitir:
+ * - orçamento global de bytes em voo (soma dos Content-Length dos uploads em andamento), que limita
+ *   o espaço de temporários e o tempo de I/O concorrente; propriedade {@code upload.inflightMb} (padrão 512,
+ *   nunca abaixo do limite de um arquivo);
+ * - uploads simultâneos no total: o pool HTTP sempre mantém {@value #THREADS_LIVRES} threads livres para
+ *   /control, /next, páginas e miniaturas;
+ * - uploads simultâneos por cliente (endereço remoto, pois o clientId é declarado pelo próprio cliente);
+ *   propriedade {@code upload.perClient} (padrão 3).
+ *
+ * Quem não cabe recebe 503 com Retry-After imediatamente, sem ocupar a thread com o corpo.
+ * As sessões RMI só contam no orçamento de bytes ({@link #reservarBytes}): não ocupam thread HTTP
+ * e o limite de sessões abertas é do próprio servidor.
+ */
+class ControleAdmissao {
+    static final int RETRY_AFTER_S = 2;
+    private static final int THREADS_LIVRES = 2;
+
+    private final long limiteBytes;
+    private final int maxSimultaneos;
+    private final int maxPorCliente;
+    private long bytesEmVoo;
+    private int emVoo;
+    private final Map<String, Integer> porCliente = new HashMap<>();
+
+    ControleAdmissao(int threadsHttp) {
+        this.limiteBytes = Math.max(ServidorGaleria.MAX_BYTES, Long.getLong("upload.inflightMb", 512) * 1024 * 1024);
+        this.maxSimultaneos = Math.max(1, threadsHttp - THREADS_LIVRES);
+        this.maxPorCliente = Math.max(1, Integer.getInteger("upload.perClient", 3));
+    }
+
+    /** Maior upload (bytes declarados) que pode ser admitido; acima disso a resposta é 413, não 503. */
+    long limiteBytes() { return limiteBytes; }
+
+    /** Vaga de um upload admitido: devolve bytes e contadores ao fechar. */
+    final class Vaga implements AutoCloseable {
+        private final String cliente; // null = só bytes (sessão RMI)
+        private final long bytes;
+        private boolean liberada;
+
+        private Vaga(String cliente, long bytes) { this.cliente = cliente; this.bytes = bytes; }
+
+        @Override public void close() {
+            synchronized (ControleAdmissao.this) {
+                if (liberada) return;
+                liberada = true;
+                bytesEmVoo -= bytes;
+                if (cliente == null) return;
+                emVoo--;
+                porCliente.computeIfPresent(cliente, (k, n) -> n > 1 ? n - 1 : null);
+            }
+        }
+    }
+
+    /**
+     * Tenta reservar {@code bytes} para um upload do cliente.
+     *
+     * @return a vaga (feche ao terminar), ou null se algum limite está esgotado
+     */
+    synchronized Vaga admitir(String cliente, long bytes) {
+        if (emVoo >= maxSimultaneos) return null;
+        if (porCliente.getOrDefault(cliente, 0) >= maxPorCliente) return null;
+        if (bytesEmVoo + bytes > limiteBytes) return null;
+        bytesEmVoo += bytes;
+        emVoo++;
+        porCliente.merge(cliente, 1, Integer::sum);
+        return new Vaga(cliente, bytes);
+    }
+
+    /**
+     * Reserva {@code bytes} do orçamento global sem ocupar vaga de upload HTTP (sessões RMI em partes,
+     * que ficam abertas entre chamadas).
+     *
+     * @return a reserva (feche no commit ou no descarte da sessão), ou null se o orçamento está esgotado
+     */
+    synchronized Vaga reservarBytes(long bytes) {
+        if (bytesEmVoo + bytes > limiteBytes) return null;
+        bytesEmVoo += bytes;
+        return new Vaga(null, bytes);
+    }
+
+    /** Resumo para log: uploads e MB em voo. */
+    synchronized String estado() {
+        return emVoo + "/" + maxSimultaneos + " upload(s), " + (bytesEmVoo >> 20) + "/" + (limiteBytes >> 20) + " MB";
+    }
+}
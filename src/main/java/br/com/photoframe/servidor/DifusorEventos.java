@@ -0,0 +1,158 @@
+package br.com.photoframe.servidor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * Difusor de Server-Sent Events (rota /events): uma única thread ("pf-eventos") distribui cada evento para
+ * todas as conexões abertas, e um comentário de keep-alive a cada {@value #PING_S} s detecta conexões mortas.
+ *
+ * Inscrições e publicações viram tarefas nessa thread, então a lista de inscritos não precisa de lock. Ela
+ * não escreve em socket: cada inscrito tem uma fila limitada ({@value #MAX_PENDENTE_BYTES} bytes) esvaziada
+ * por uma tarefa própria ("pf-eventos-envio"), de modo que um cliente travado só atrasa a si mesmo. Quem
+ * acumula além do limite é descartado; a vaga volta quando a escrita pendente dele terminar ou falhar.
+ * Os handlers HTTP só enfileiram e liberam sua thread.
+ */
+class DifusorEventos {
+    private static final int PING_S = 15;
+    private static final int MAX_INSCRITOS = 64;
+    private static final int MAX_PENDENTE_BYTES = 256 * 1024;
+
+    private final List<Inscrito> inscritos = new ArrayList<>(); // só acessada pela thread pf-eventos
+    private final AtomicInteger total = new AtomicInteger();
+    private final ScheduledExecutorService thread = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "pf-eventos"); t.setDaemon(true); return t;
+    });
+    // No máximo uma tarefa por inscrito (MAX_INSCRITOS, contando descartados ainda presos numa escrita)
+    private final ExecutorService envio = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "pf-eventos-envio"); t.setDaemon(true); return t;
+    });
+
+    DifusorEventos() {
+        thread.scheduleWithFixedDelay(() -> difundir(": ping\n\n"), PING_S, PING_S, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Reserva uma vaga antes de enviar os cabeçalhos da resposta.
+     *
+     * @return false se o limite de conexões foi atingido (o chamador responde 503)
+     */
+    boolean reservar() {
+        if (total.incrementAndGet() <= MAX_INSCRITOS) return true;
+        total.decrementAndGet();
+        return false;
+    }
+
+    /** Assume a conexão (vaga reservada, cabeçalhos já enviados): envia o estado inicial e passa a receber os eventos. */
+    void inscrever(HttpExchange ex, String estadoInicial) {
+        executar(() -> {
+            Inscrito i = new Inscrito(ex);
+            if (i.enfileirar("retry: 3000\n\n" + estadoInicial)) inscritos.add(i);
+        });
+    }
+
+    /** Publica um evento (dados em uma linha, ex.: JSON) para todos os inscritos. */
+    void publicar(String evento, String dados) {
+        String msg = formatar(evento, dados);
+        executar(() -> difundir(msg));
+    }
+
+    static String formatar(String evento, String dados) {
+        return "event: " + evento + "\ndata: " + dados + "\n\n";
+    }
+
+    private void executar(Runnable r) {
+        try { thread.execute(r); } catch (RejectedExecutionException ignore) {}
+    }
+
+    private void difundir(String msg) {
+        for (Iterator<Inscrito> it = inscritos.iterator(); it.hasNext(); ) {
+            if (!it.next().enfileirar(msg)) it.remove();
+        }
+    }
+
+    /** Conexão inscrita com sua fila de mensagens ainda não escritas. */
+    private final class Inscrito {
+        private final HttpExchange ex;
+        private final ArrayDeque<byte[]> fila = new ArrayDeque<>();
+        private long pendente;       // bytes na fila
+        private boolean agendado;    // há tarefa de envio em andamento
+        private boolean encerrado;   // falhou ou ficou para trás: a tarefa de envio fecha a conexão
+
+        Inscrito(HttpExchange ex) { this.ex = ex; }
+
+        /**
+         * Enfileira a mensagem (chamado pela pf-eventos, nunca bloqueia).
+         *
+         * @return false se a conexão acabou ou ficou para trás demais; o chamador a remove da lista
+         */
+        synchronized boolean enfileirar(String msg) {
+            if (encerrado) return false;
+            byte[] dados = msg.getBytes(StandardCharsets.UTF_8);
+            if (pendente + dados.length > MAX_PENDENTE_BYTES) {
+                System.err.println("[WEB] /events: cliente " + ex.getRemoteAddress() + " não acompanha os eventos, desconectado");
+                encerrado = true;
+                fila.clear();
+                return false; // a fila estava cheia, então há tarefa de envio em andamento para fechar
+            }
+            fila.add(dados);
+            pendente += dados.length;
+            if (!agendado) {
+                agendado = true;
+                try { envio.execute(this::esvaziar); }
+                catch (RejectedExecutionException e) { agendado = false; encerrado = true; liberar(); return false; }
+            }
+            return true;
+        }
+
+        // Tarefa de envio: escreve até a fila esvaziar; é quem fecha a conexão quando ela é encerrada
+        private void esvaziar() {
+            while (true) {
+                byte[] dados;
+                synchronized (this) {
+                    dados = encerrado ? null : fila.poll();
+                    if (dados == null) {
+                        agendado = false;
+                        if (!encerrado) return;
+                        break;
+                    }
+                    pendente -= dados.length;
+                }
+                if (!escrever(dados)) {
+                    synchronized (this) { encerrado = true; agendado = false; fila.clear(); }
+                    break;
+                }
+            }
+            liberar();
+        }
+
+        private boolean escrever(byte[] dados) {
+            try {
+                OutputStream os = ex.getResponseBody();
+                os.write(dados);
+                os.flush();
+                return true;
+            } catch (IOException | RuntimeException e) {
+                return false;
+            }
+        }
+
+        private void liberar() {
+            total.decrementAndGet();
+            try { ex.close(); } catch (RuntimeException ignore) {}
+        }
+    }
+}
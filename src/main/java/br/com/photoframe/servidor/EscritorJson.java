@@ -0,0 +1,85 @@
+package br.com.photoframe.servidor;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Escritor JSON em streaming: grava direto no corpo da resposta (UTF-8, com buffer), sem montar a
+ * String inteira em memória. Cuida das vírgulas entre elementos; o chamador só abre/fecha os
+ * objetos e arrays na ordem certa.
+ */
+class EscritorJson implements Closeable {
+    private final Writer out;
+    // Um nível por objeto/array aberto: true enquanto ainda não há elemento nele
+    private final Deque<Boolean> vazio = new ArrayDeque<>();
+    private boolean depoisDeNome;
+
+    EscritorJson(OutputStream os) {
+        this.out = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8), 8192);
+    }
+
+    EscritorJson abrirObjeto() throws IOException { separar(); out.write('{'); vazio.push(true); return this; }
+    EscritorJson fecharObjeto() throws IOException { vazio.pop(); out.write('}'); return this; }
+    EscritorJson abrirArray() throws IOException { separar(); out.write('['); vazio.push(true); return this; }
+    EscritorJson fecharArray() throws IOException { vazio.pop(); out.write(']'); return this; }
+
+    EscritorJson nome(String nome) throws IOException {
+        separar();
+        texto(nome);
+        out.write(':');
+        depoisDeNome = true;
+        return this;
+    }
+
+    EscritorJson valor(String v) throws IOException {
+        separar();
+        if (v == null) out.write("null"); else texto(v);
+        return this;
+    }
+
+    EscritorJson valor(long v) throws IOException { separar(); out.write(Long.toString(v)); return this; }
+    EscritorJson valor(boolean v) throws IOException { separar(); out.write(v ? "true" : "false"); return this; }
+
+    // Vírgula antes de todo elemento que não é o primeiro do nível (valor logo após o nome não conta)
+    private void separar() throws IOException {
+        if (depoisDeNome) { depoisDeNome = false; return; }
+        if (vazio.isEmpty()) return;
+        if (!vazio.pop()) out.write(',');
+        vazio.push(false);
+    }
+
+    private void texto(String s) throws IOException {
+        out.write(literal(s));
+    }
+
+    /** String JSON (entre aspas, escapada) para quem monta JSON pequeno sem streaming. */
+    static String literal(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /** Descarrega o buffer e fecha o corpo da resposta. */
+    @Override public void close() throws IOException {
+        out.close();
+    }
+}
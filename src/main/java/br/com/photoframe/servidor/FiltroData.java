@@ -0,0 +1,94 @@
+package br.com.photoframe.servidor;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
+
+import br.com.photoframe.compartilhado.core.DateUtil;
+
+/**
+ * Filtro de exibição por data (dia, semana, mês, ano ou intervalo).
+ *
+ * Como os caminhos do catálogo começam com {@code yyyy/MM/dd/}, qualquer filtro vira um intervalo
+ * contíguo de chaves {@code [inicio, fim)} no {@link CatalogoOrdenado}; achar o próximo arquivo dentro
+ * do filtro é uma busca O(log n), sem percorrer a fila.
+ *
+ * Formatos aceitos:
+ * - dia: {@code yyyyMMdd}, {@code yyyy-MM-dd}, {@code yyyy/MM/dd} (com ou sem "/" final)
+ * - semana ISO: {@code yyyy-Www} (ex.: 2025-W32, segunda a domingo)
+ * - mês: {@code yyyy-MM} ou {@code yyyy/MM}
+ * - ano: {@code yyyy}
+ * - intervalo: {@code A..B}, onde A e B são qualquer um dos formatos acima
+ */
+final class FiltroData {
+    /** Forma canônica (ex.: "2025/08/10/", "2025/08/", "2025/08/04/..2025/08/10/"). */
+    final String texto;
+    /** Menor chave incluída. */
+    final String inicio;
+    /** Primeira chave fora do filtro. */
+    final String fim;
+
+    private FiltroData(String texto, String inicio, String fim) {
+        this.texto = texto;
+        this.inicio = inicio;
+        this.fim = fim;
+    }
+
+    boolean contem(String rel) { return rel.compareTo(inicio) >= 0 && rel.compareTo(fim) < 0; }
+
+    /**
+     * Interpreta o filtro informado pelo usuário.
+     *
+     * @return filtro, ou null se vazio/inválido
+     */
+    static FiltroData parse(String valor) {
+        if (valor == null) return null;
+        String v = valor.trim();
+        if (v.isEmpty()) return null;
+        int sep = v.indexOf("..");
+        if (sep >= 0) {
+            String[] a = prefixos(v.substring(0, sep).trim());
+            String[] b = prefixos(v.substring(sep + 2).trim());
+            if (a == null || b == null || a[0].compareTo(b[0]) > 0) return null;
+            return new FiltroData(a[0] + ".." + b[1], a[0], b[1] + '\uffff');
+        }
+        String[] p = prefixos(v);
+        if (p == null) return null;
+        return new FiltroData(p[0].equals(p[1]) ? p[0] : p[0] + ".." + p[1], p[0], p[1] + '\uffff');
+    }
+
+    // [0] = prefixo do primeiro dia/mês/ano, [1] = prefixo do último
+    private static String[] prefixos(String v) {
+        if (v.endsWith("/")) v = v.substring(0, v.length() - 1);
+        String dia = DateUtil.normalizeDatePrefix(v);
+        if (dia != null) return new String[] { dia, dia };
+        try {
+            if (v.matches("\\d{4}-W\\d{2}")) {
+                LocalDate jan4 = LocalDate.of(Integer.parseInt(v.substring(0, 4)), 1, 4);
+                int semana = Integer.parseInt(v.substring(6));
+                // with() aceita 53 em qualquer ano e cairia na semana 1 do ano seguinte
+                if (!jan4.range(IsoFields.WEEK_OF_WEEK_BASED_YEAR).isValidIntValue(semana)) return null;
+                LocalDate ref = jan4.with(IsoFields.WEEK_OF_WEEK_BASED_YEAR, semana);
+                LocalDate seg = ref.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                return new String[] { prefixo(seg), prefixo(seg.plusDays(6)) };
+            }
+            if (v.matches("\\d{4}[-/]\\d{2}")) {
+                int m = Integer.parseInt(v.substring(5, 7));
+                if (m < 1 || m > 12) return null;
+                String mes = v.substring(0, 4) + "/" + v.substring(5, 7) + "/";
+                return new String[] { mes, mes };
+            }
+            if (v.matches("\\d{4}")) return new String[] { v + "/", v + "/" };
+        } catch (NumberFormatException | DateTimeException e) {
+            return null;
+        }
+        return null;
+    }
+
+    private static String prefixo(LocalDate d) {
+        return String.format(Locale.ROOT, "%04d/%02d/%02d/", d.getYear(), d.getMonthValue(), d.getDayOfMonth());
+    }
+}
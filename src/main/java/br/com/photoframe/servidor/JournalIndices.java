@@ -0,0 +1,198 @@
+package br.com.photoframe.servidor;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Journal append-only das mutações dos índices de donos e hashes.
+ *
+ * Cada alteração vira uma linha no fim de {@code uploads/.index.journal} (custo O(1) de I/O,
+ * independente do tamanho da galeria). Periodicamente o journal é compactado nos snapshots
+ * {@code .owners.tsv} e {@code .hashes.tsv}, que mantêm o formato antigo.
+ *
+ * Formato das linhas (TSV):
+ * - {@code O<TAB>rel<TAB>dono}: define o dono de um arquivo
+ * - {@code H<TAB>rel<TAB>md5}: define o hash de um arquivo
+ * - {@code D<TAB>rel}: remove o arquivo dos dois índices
+ *
+ * Compactação em duas fases: {@link #rotacionar()} (rápido, feito junto com a cópia dos mapas)
+ * renomeia o journal atual para {@code .old}; {@link #gravarSnapshot(Map, Map)} (lento, fora de locks)
+ * grava os snapshots e só então apaga o {@code .old}. Na carga, o replay é snapshot → .old → journal,
+ * o que é idempotente mesmo se o processo cair no meio da compactação.
+ */
+class JournalIndices {
+    private final Path ownerSnapshot;
+    private final Path hashSnapshot;
+    private final Path journal;
+    private final Path journalAnterior;
+    private Writer out;
+    private int entradas;
+
+    JournalIndices(Path ownerSnapshot, Path hashSnapshot, Path journal) {
+        this.ownerSnapshot = ownerSnapshot;
+        this.hashSnapshot = hashSnapshot;
+        this.journal = journal;
+        this.journalAnterior = journal.resolveSibling(journal.getFileName() + ".old");
+    }
+
+    /**
+     * Carrega snapshots e aplica o journal pendente sobre os mapas informados.
+     */
+    synchronized void carregar(Map<String, String> donos, Map<String, String> hashes) {
+        lerSnapshot(ownerSnapshot, donos, "donos");
+        lerSnapshot(hashSnapshot, hashes, "hashes");
+        int aplicadas = replay(journalAnterior, donos, hashes) + replay(journal, donos, hashes);
+        entradas = aplicadas;
+        if (aplicadas > 0) System.out.println("[INDICE] " + aplicadas + " mutação(ões) aplicadas do journal.");
+    }
+
+    synchronized void registrarDono(String rel, String dono) { anexar("O\t" + limpar(rel) + "\t" + limpar(dono)); }
+    synchronized void registrarHash(String rel, String md5) { anexar("H\t" + limpar(rel) + "\t" + limpar(md5)); }
+    synchronized void registrarRemocao(String rel) { anexar("D\t" + limpar(rel)); }
+
+    /** Donos e hashes de vários arquivos numa única escrita/flush (upload em lote). */
+    synchronized void registrarLote(Map<String, String> donos, Map<String, String> hashes) {
+        List<String> linhas = new ArrayList<>(donos.size() + hashes.size());
+        donos.forEach((rel, dono) -> linhas.add("O\t" + limpar(rel) + "\t" + limpar(dono)));
+        hashes.forEach((rel, md5) -> linhas.add("H\t" + limpar(rel) + "\t" + limpar(md5)));
+        if (!linhas.isEmpty()) anexar(linhas);
+    }
+
+    /** Remoção de vários arquivos numa única escrita/flush (conferência do catálogo com o disco). */
+    synchronized void registrarRemocoes(List<String> rels) {
+        if (!rels.isEmpty()) anexar(rels.stream().map(rel -> "D\t" + limpar(rel)).collect(Collectors.toList()));
+    }
+
+    /** Quantidade de mutações no journal desde a última compactação. */
+    synchronized int entradas() { return entradas; }
+
+    /**
+     * Fecha o journal atual e o move para {@code .old}, para que novas mutações caiam num arquivo novo.
+     * Deve ser chamado no mesmo trecho crítico em que os mapas são copiados para o snapshot.
+     */
+    synchronized void rotacionar() {
+        fecharSaida();
+        try {
+            if (Files.exists(journal)) {
+                if (Files.exists(journalAnterior)) {
+                    // Compactação anterior não terminou: preserva a ordem anexando ao .old existente
+                    Files.write(journalAnterior, Files.readAllBytes(journal), StandardOpenOption.APPEND);
+                    Files.delete(journal);
+                } else {
+                    Files.move(journal, journalAnterior, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Falha ao rotacionar journal de índices: " + e.getMessage());
+        }
+        entradas = 0;
+    }
+
+    /**
+     * Grava os snapshots completos (arquivo temporário + move atômico) e descarta o journal rotacionado.
+     */
+    void gravarSnapshot(Map<String, String> donos, Map<String, String> hashes) {
+        try {
+            escreverAtomico(ownerSnapshot, donos);
+            escreverAtomico(hashSnapshot, hashes);
+            Files.deleteIfExists(journalAnterior);
+            System.out.println("[INDICE] Journal compactado (" + donos.size() + " dono(s), " + hashes.size() + " hash(es)).");
+        } catch (IOException e) {
+            // O .old permanece e será reaplicado na próxima carga/compactação
+            System.err.println("Falha ao compactar índices: " + e.getMessage());
+        }
+    }
+
+    synchronized void fechar() { fecharSaida(); }
+
+    private void anexar(String linha) { anexar(List.of(linha)); }
+
+    private void anexar(List<String> linhas) {
+        try {
+            if (out == null) {
+                Files.createDirectories(journal.toAbsolutePath().getParent());
+                out = new BufferedWriter(Files.newBufferedWriter(journal, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+            }
+            for (String linha : linhas) {
+                out.write(linha);
+                out.write('\n');
+            }
+            out.flush();
+            entradas += linhas.size();
+        } catch (IOException e) {
+            System.err.println("Falha ao gravar journal de índices: " + e.getMessage());
+            fecharSaida();
+        }
+    }
+
+    private void fecharSaida() {
+        if (out == null) return;
+        try { out.close(); } catch (IOException ignore) {}
+        out = null;
+    }
+
+    private static void lerSnapshot(Path arquivo, Map<String, String> destino, String nome) {
+        if (!Files.exists(arquivo)) return;
+        try {
+            for (String line : Files.readAllLines(arquivo, StandardCharsets.UTF_8)) {
+                if (line.isBlank() || line.startsWith("#")) continue;
+                String[] parts = line.split("\t");
+                if (parts.length < 2) continue;
+                destino.put(parts[0], parts[1]);
+            }
+        } catch (IOException e) {
+            System.err.println("Falha ao ler índice de " + nome + ": " + e.getMessage());
+        }
+    }
+
+    private static int replay(Path arquivo, Map<String, String> donos, Map<String, String> hashes) {
+        if (!Files.exists(arquivo)) return 0;
+        int n = 0;
+        try {
+            byte[] dados = Files.readAllBytes(arquivo);
+            // Só linhas terminadas em '\n' valem: a última pode ter sido cortada por uma queda no meio da
+            // escrita (ex.: hash pela metade) e é removida do arquivo, para o próximo append não emendar nela
+            int completo = dados.length;
+            while (completo > 0 && dados[completo - 1] != '\n') completo--;
+            if (completo < dados.length) {
+                System.err.println("[INDICE] Linha incompleta no fim de " + arquivo.getFileName() + " descartada.");
+                try (FileChannel ch = FileChannel.open(arquivo, StandardOpenOption.WRITE)) { ch.truncate(completo); }
+            }
+            for (String line : new String(dados, 0, completo, StandardCharsets.UTF_8).split("\n")) {
+                String[] parts = line.split("\t");
+                if (parts.length >= 3 && "O".equals(parts[0])) { donos.put(parts[1], parts[2]); n++; }
+                else if (parts.length >= 3 && "H".equals(parts[0])) { hashes.put(parts[1], parts[2]); n++; }
+                else if (parts.length >= 2 && "D".equals(parts[0])) { donos.remove(parts[1]); hashes.remove(parts[1]); n++; }
+            }
+        } catch (IOException e) {
+            System.err.println("Falha ao ler journal de índices: " + e.getMessage());
+        }
+        return n;
+    }
+
+    private static void escreverAtomico(Path destino, Map<String, String> mapa) throws IOException {
+        Files.createDirectories(destino.toAbsolutePath().getParent());
+        List<String> lines = mapa.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(e -> e.getKey() + "\t" + e.getValue())
+                .collect(Collectors.toList());
+        Path tmp = destino.resolveSibling(destino.getFileName() + ".tmp");
+        Files.write(tmp, lines, StandardCharsets.UTF_8);
+        Files.move(tmp, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // TAB/quebras de linha quebrariam o formato TSV
+    private static String limpar(String s) { return s == null ? "" : s.replace('\t', '_').replace('\n', '_').replace('\r', '_'); }
+}
@@ -0,0 +1,117 @@
+package br.com.photoframe.servidor;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+
+import br.com.photoframe.compartilhado.core.FileNameUtil;
+import br.com.photoframe.compartilhado.core.HashUtil;
+
+/**
+ * Upload em lote (rota /upload-batch): vários arquivos num único corpo, em quadros
+ * {@code <tamanho><TAB><nome>\n} seguidos de exatamente {@code tamanho} bytes, até o fim do stream.
+ *
+ * {@link #receber} grava cada quadro num temporário oculto do diretório do dia (MD5 incremental, sem
+ * manter arquivos em memória); a publicação de todos acontece depois, de uma vez, em
+ * {@code ServidorGaleria.uploadBatch}. Quadros inválidos (extensão, tamanho) são pulados e marcados
+ * como rejeitados sem abortar o lote; corpo truncado ou malformado descarta o lote inteiro, para
+ * que o reenvio não gere duplicatas.
+ */
+class LoteUpload {
+    static final int MAX_ARQUIVOS = 500;
+    private static final int MAX_CABECALHO = 1024;
+
+    /** Um quadro do lote; {@code tmp == null} indica arquivo rejeitado. */
+    static final class Arquivo {
+        final String nome;
+        final long bytes;
+        Path tmp;
+        String md5;
+        String relativePath; // preenchido na publicação
+
+        Arquivo(String nome, long bytes) { this.nome = nome; this.bytes = bytes; }
+    }
+
+    final List<Arquivo> arquivos = new ArrayList<>();
+
+    /**
+     * Lê o corpo inteiro gravando os arquivos aceitos em {@code dir}.
+     *
+     * @throws IOException se o corpo estiver truncado/malformado (temporários já removidos)
+     */
+    static LoteUpload receber(InputStream body, Path dir, long maxBytes) throws IOException {
+        LoteUpload lote = new LoteUpload();
+        InputStream in = new BufferedInputStream(body, 64 * 1024); // cabeçalhos são lidos byte a byte
+        try {
+            byte[] buf = new byte[64 * 1024];
+            String cabecalho;
+            while ((cabecalho = lerCabecalho(in)) != null) {
+                if (lote.arquivos.size() >= MAX_ARQUIVOS) throw new IOException("lote com mais de " + MAX_ARQUIVOS + " arquivos");
+                int tab = cabecalho.indexOf('\t');
+                long tamanho;
+                try { tamanho = Long.parseLong(tab < 0 ? "" : cabecalho.substring(0, tab).trim()); }
+                catch (NumberFormatException e) { throw new IOException("cabeçalho de quadro inválido"); }
+                if (tamanho < 0) throw new IOException("cabeçalho de quadro inválido");
+                Arquivo a = new Arquivo(FileNameUtil.sanitizeFileName(cabecalho.substring(tab + 1)), tamanho);
+                lote.arquivos.add(a);
+                if (tamanho == 0 || tamanho > maxBytes || !FileNameUtil.isAllowedExtension(a.nome)) {
+                    System.err.println("Upload rejeitado no lote: " + a.nome + " (" + tamanho + " bytes)");
+                    copiar(in, null, null, tamanho, buf);
+                    continue;
+                }
+                a.tmp = dir.resolve(".upload-" + java.util.UUID.randomUUID() + ".part");
+                MessageDigest md = HashUtil.newMd5();
+                try (OutputStream out = Files.newOutputStream(a.tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                    copiar(in, out, md, tamanho, buf);
+                }
+                a.md5 = HashUtil.toHex(md.digest());
+            }
+            return lote;
+        } catch (IOException | RuntimeException e) {
+            lote.descartar();
+            throw e;
+        }
+    }
+
+    /** Apaga os temporários ainda não publicados. */
+    void descartar() {
+        for (Arquivo a : arquivos) {
+            if (a.tmp == null || a.relativePath != null) continue;
+            try { Files.deleteIfExists(a.tmp); } catch (IOException ignore) {}
+        }
+    }
+
+    // Linha até '\n' (UTF-8); null no fim limpo do stream
+    private static String lerCabecalho(InputStream in) throws IOException {
+        ByteArrayOutputStream linha = new ByteArrayOutputStream(128);
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            if (linha.size() >= MAX_CABECALHO) throw new IOException("cabeçalho de quadro longo demais");
+            linha.write(b);
+        }
+        if (b == -1) {
+            if (linha.size() == 0) return null;
+            throw new IOException("lote truncado");
+        }
+        return linha.toString(StandardCharsets.UTF_8);
+    }
+
+    // Copia exatamente n bytes (out == null descarta)
+    private static void copiar(InputStream in, OutputStream out, MessageDigest md, long n, byte[] buf) throws IOException {
+        while (n > 0) {
+            int r = in.read(buf, 0, (int) Math.min(buf.length, n));
+            if (r == -1) throw new IOException("lote truncado");
+            if (out != null) { md.update(buf, 0, r); out.write(buf, 0, r); }
+            n -= r;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package br.com.photoframe.servidor;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Cache em disco de miniaturas JPEG ({@code uploads/.thumbs/<md5>.jpg}) para as listas do uploader.
+ *
+ * Cada miniatura é gerada uma única vez, na primeira requisição, a partir da menor versão de
+ * exibição já existente (ou do original); como a chave é o MD5 do conteúdo, pode ser servida com
+ * cache de longa duração.
+ */
+class Miniaturas {
+    /** Lado maior da miniatura (a lista mostra 48px; folga para telas de alta densidade). */
+    private static final int LADO = 160;
+    private static final float QUALIDADE_JPEG = 0.8f;
+
+    private final Path dir;
+    // Geração em andamento por MD5: pedidos simultâneos esperam o mesmo resultado em vez de decodificar de novo
+    private final Map<String, CompletableFuture<Path>> emGeracao = new ConcurrentHashMap<>();
+
+    Miniaturas(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Caminho da miniatura, gerando-a se necessário.
+     *
+     * @param fonte imagem a reduzir (versão de exibição ou original)
+     * @return arquivo da miniatura, ou null se a fonte não puder ser decodificada
+     */
+    Path obter(String md5, Path fonte) {
+        String chave = md5.toLowerCase(Locale.ROOT);
+        Path destino = dir.resolve(chave + ".jpg");
+        if (Files.exists(destino)) return destino;
+        CompletableFuture<Path> minha = new CompletableFuture<>();
+        CompletableFuture<Path> andamento = emGeracao.putIfAbsent(chave, minha);
+        if (andamento != null) return andamento.join();
+        try {
+            // Outro pedido pode ter terminado entre o exists acima e o registro da geração
+            minha.complete(Files.exists(destino) ? destino : gerar(fonte, destino));
+        } finally {
+            minha.complete(null);
+            // Só sai do mapa depois de publicada: quem chegar depois acha o arquivo pronto
+            emGeracao.remove(chave, minha);
+        }
+        return minha.join();
+    }
+
+    /** Apaga a miniatura de um conteúdo que não está mais em nenhum arquivo do catálogo. */
+    void remover(String md5) {
+        try { Files.deleteIfExists(dir.resolve(md5.toLowerCase(Locale.ROOT) + ".jpg")); }
+        catch (IOException e) { System.err.println("[THUMB] Falha ao apagar miniatura de " + md5 + ": " + e.getMessage()); }
+    }
+
+    // null se a fonte não puder ser decodificada
+    private Path gerar(Path fonte, Path destino) {
+        try {
+            BufferedImage img = ImageIO.read(fonte.toFile());
+            if (img == null) return null;
+            double escala = Math.min(1.0, (double) LADO / Math.max(img.getWidth(), img.getHeight()));
+            int w = Math.max(1, (int) Math.round(img.getWidth() * escala));
+            int h = Math.max(1, (int) Math.round(img.getHeight() * escala));
+            Files.createDirectories(dir);
+            VersoesExibicao.gravarJpeg(VersoesExibicao.reduzir(img, w, h), destino, QUALIDADE_JPEG);
+            return destino;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[THUMB] Falha ao gerar miniatura de " + fonte.getFileName() + ": " + e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package br.com.photoframe.servidor;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Indexador incremental: observa {@code uploads/} com {@link WatchService} e avisa o servidor quando
+ * arquivos aparecem ou somem por fora do upload (ex.: rsync/cópia direta nas pastas do dia).
+ *
+ * Todas as pastas visíveis são registradas (ano, mês e dia); pastas novas são registradas ao surgir
+ * e o conteúdo delas é lido na hora, já que a cópia pode ter começado antes do registro. Na partida
+ * as pastas do dia ({@value #PROFUNDIDADE_DIA} níveis abaixo da base) só são registradas, sem listar
+ * os arquivos: o catálogo já veio do snapshot/varredura.
+ * Eventos do mesmo caminho são agrupados até ficarem {@link #QUIETO_MS} sem mudança (arquivo
+ * terminou de ser copiado); só então o caminho é entregue, num pool separado, para o hash não
+ * atrasar a leitura dos eventos. Nomes ocultos (temporários do upload e do rsync) são ignorados.
+ */
+class ObservadorUploads {
+    private static final long QUIETO_MS = 2000;
+    // uploads/AAAA/MM/DD: abaixo disso só há arquivos (não é preciso listar nem consultar cada um)
+    private static final int PROFUNDIDADE_DIA = 3;
+
+    private final Path base;
+    private final Consumer<String> aoSurgir;
+    private final Consumer<String> aoSumir;
+    private final Runnable aoPerderEventos;
+    private final Map<WatchKey, Path> pastas = new HashMap<>();
+    // caminho relativo → instante do último evento (acesso só pela thread do observador)
+    private final Map<String, Long> pendentes = new HashMap<>();
+    private final ExecutorService indexador = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "pf-indexador"); t.setDaemon(true); return t;
+    });
+    private WatchService watcher;
+    private volatile boolean ativo;
+
+    /**
+     * @param aoSurgir arquivo novo/alterado e estável (caminho relativo)
+     * @param aoSumir arquivo ou pasta removida (caminho relativo)
+     * @param aoPerderEventos fila de eventos estourou (OVERFLOW): o chamador deve reconciliar tudo
+     */
+    ObservadorUploads(Path base, Consumer<String> aoSurgir, Consumer<String> aoSumir, Runnable aoPerderEventos) {
+        this.base = base;
+        this.aoSurgir = aoSurgir;
+        this.aoSumir = aoSumir;
+        this.aoPerderEventos = aoPerderEventos;
+    }
+
+    void iniciar() {
+        try {
+            Files.createDirectories(base);
+            watcher = FileSystems.getDefault().newWatchService();
+            registrarArvore(base, false);
+        } catch (IOException e) {
+            System.err.println("[INDICE] Observador de uploads indisponível: " + e.getMessage());
+            return;
+        }
+        Thread t = new Thread(this::laco, "pf-observador");
+        t.setDaemon(true);
+        t.start();
+        ativo = true;
+        System.out.println("[INDICE] Observando " + pastas.size() + " pasta(s) de uploads.");
+    }
+
+    /** true depois que as pastas foram registradas e os eventos estão sendo lidos. */
+    boolean ativo() { return ativo; }
+
+    void parar() {
+        ativo = false;
+        try { if (watcher != null) watcher.close(); } catch (IOException ignore) {}
+        indexador.shutdownNow();
+    }
+
+    private void laco() {
+        while (true) {
+            WatchKey key;
+            try {
+                // Com eventos pendentes, acorda a tempo de entregar os que ficaram quietos
+                key = pendentes.isEmpty() ? watcher.take() : watcher.poll(QUIETO_MS / 4, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            if (key != null) tratar(key);
+            entregarEstaveis();
+        }
+    }
+
+    private void tratar(WatchKey key) {
+        Path dir = pastas.get(key);
+        for (WatchEvent<?> ev : key.pollEvents()) {
+            if (ev.kind() == StandardWatchEventKinds.OVERFLOW) {
+                System.err.println("[INDICE] Eventos perdidos (OVERFLOW), reconciliando catálogo.");
+                indexador.execute(aoPerderEventos);
+                continue;
+            }
+            if (dir == null) continue;
+            Path nome = (Path) ev.context();
+            if (nome.toString().startsWith(".")) continue;
+            Path caminho = dir.resolve(nome);
+            if (ev.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(caminho)) {
+                registrarArvore(caminho, true);
+            } else {
+                pendentes.put(SnapshotCatalogo.relativo(base, caminho), System.currentTimeMillis());
+            }
+        }
+        if (!key.reset()) pastas.remove(key); // pasta removida
+    }
+
+    private void entregarEstaveis() {
+        if (pendentes.isEmpty()) return;
+        long agora = System.currentTimeMillis();
+        List<String> prontos = new ArrayList<>();
+        pendentes.entrySet().removeIf(e -> {
+            if (agora - e.getValue() < QUIETO_MS) return false;
+            prontos.add(e.getKey());
+            return true;
+        });
+        for (String rel : prontos) {
+            Path p = base.resolve(rel);
+            if (Files.isRegularFile(p)) {
+                if (SnapshotCatalogo.catalogavel(p.getFileName().toString())) indexador.execute(() -> aoSurgir.accept(rel));
+            } else if (!Files.exists(p)) {
+                indexador.execute(() -> aoSumir.accept(rel));
+            }
+        }
+    }
+
+    // Registra dir e as subpastas visíveis; se novaPasta, agenda os arquivos já presentes nela.
+    // Pastas do dia já existentes não são listadas: a partida custa um stat por pasta, não por arquivo.
+    private void registrarArvore(Path dir, boolean novaPasta) {
+        try {
+            WatchKey key = dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            pastas.put(key, dir);
+        } catch (IOException e) {
+            System.err.println("[INDICE] Falha ao observar " + dir + ": " + e.getMessage());
+            return;
+        }
+        if (!novaPasta && base.relativize(dir).getNameCount() >= PROFUNDIDADE_DIA) return;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir)) {
+            for (Path p : ds) {
+                if (p.getFileName().toString().startsWith(".")) continue;
+                if (Files.isDirectory(p)) registrarArvore(p, novaPasta);
+                else if (novaPasta) pendentes.put(SnapshotCatalogo.relativo(base, p), System.currentTimeMillis());
+            }
+        } catch (IOException e) {
+            System.err.println("[INDICE] Falha ao listar " + dir + ": " + e.getMessage());
+        }
+    }
+}
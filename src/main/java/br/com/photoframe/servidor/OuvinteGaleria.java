@@ -0,0 +1,24 @@
+package br.com.photoframe.servidor;
+
+import br.com.photoframe.compartilhado.ItemExibicao;
+import br.com.photoframe.compartilhado.PlaybackConfig;
+
+/**
+ * Notificações de mudança de estado do {@link ServidorGaleria} (usadas pelo canal /events).
+ *
+ * Podem ser chamadas com locks internos adquiridos (displayLock/catalogLock): implementações devem
+ * só enfileirar o evento e retornar, sem bloquear nem chamar de volta o servidor.
+ */
+interface OuvinteGaleria {
+    /** Nova configuração de reprodução publicada (inclui mudança do filtro de data). */
+    void controleAlterado(PlaybackConfig config);
+
+    /** O item em exibição mudou (nova {@code displayVersion}). */
+    void exibicaoAlterada(ItemExibicao item);
+
+    /** Arquivo entrou no catálogo (upload ou cópia externa). */
+    void arquivoAdicionado(String relativePath);
+
+    /** Arquivo saiu do catálogo (exclusão, remoção externa ou quarentena). */
+    void arquivoRemovido(String relativePath);
+}
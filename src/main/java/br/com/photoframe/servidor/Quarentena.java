@@ -0,0 +1,106 @@
+package br.com.photoframe.servidor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Quarentena de arquivos cujo MD5 divergiu do índice ({@code uploads/.quarantine/<caminho relativo>}).
+ *
+ * O arquivo sai do catálogo (não é mais exibido nem listado), mas as entradas de dono e hash
+ * continuam nos índices, para que o arquivo possa ser analisado/restaurado manualmente.
+ * Os achados da execução atual ficam em memória; os anteriores ao reinício são reconstruídos
+ * a partir do conteúdo da pasta (sem os detalhes de hash).
+ */
+class Quarentena {
+    /** Um arquivo em quarentena. Campos de hash são null para achados anteriores ao reinício. */
+    static final class Achado {
+        final String rel;
+        final String esperado;
+        final String atual;
+        final String origem;
+        final long quando;
+
+        Achado(String rel, String esperado, String atual, String origem, long quando) {
+            this.rel = rel;
+            this.esperado = esperado;
+            this.atual = atual;
+            this.origem = origem;
+            this.quando = quando;
+        }
+    }
+
+    private final Path base;
+    private final Path dir;
+    private final Map<String, Achado> achados = new ConcurrentHashMap<>();
+
+    Quarentena(Path base, Path dir) {
+        this.base = base;
+        this.dir = dir;
+    }
+
+    /** Reconstrói a lista a partir da pasta de quarentena. */
+    void carregar() {
+        if (!Files.isDirectory(dir)) return;
+        try (Stream<Path> s = Files.walk(dir)) {
+            s.filter(Files::isRegularFile).forEach(p -> {
+                long quando;
+                try { quando = Files.getLastModifiedTime(p).toMillis(); } catch (IOException e) { quando = 0L; }
+                String rel = SnapshotCatalogo.relativo(dir, p);
+                achados.put(rel, new Achado(rel, null, null, "anterior", quando));
+            });
+        } catch (IOException e) {
+            System.err.println("[INTEGRIDADE] Falha ao ler quarentena: " + e.getMessage());
+        }
+        if (!achados.isEmpty()) System.out.println("[INTEGRIDADE] " + achados.size() + " arquivo(s) em quarentena.");
+    }
+
+    /**
+     * Caminho isolado e ainda não devolvido ao catálogo (os índices de dono/hash dele são mantidos).
+     * A exibição não usa isto: o que está no catálogo nunca está em quarentena.
+     */
+    boolean contem(String rel) { return achados.containsKey(rel); }
+
+    /**
+     * O caminho voltou ao catálogo (restaurado, copiado ou publicado de novo): sai da lista de achados.
+     * A cópia isolada continua na pasta e reaparece como achado anterior após um reinício.
+     */
+    void liberar(String rel) {
+        if (achados.remove(rel) != null) System.out.println("[INTEGRIDADE] Caminho de volta ao catálogo, fora da quarentena: " + rel);
+    }
+
+    /**
+     * Move o arquivo para a quarentena, preservando o caminho relativo.
+     *
+     * @return true se o arquivo foi movido
+     */
+    boolean isolar(String rel, String esperado, String atual, String origem) {
+        Path origemArq = base.resolve(rel);
+        Path destino = dir.resolve(rel);
+        try {
+            Files.createDirectories(destino.getParent());
+            // Não sobrescreve um arquivo já isolado com o mesmo caminho
+            if (Files.exists(destino)) destino = destino.resolveSibling(destino.getFileName() + "." + System.currentTimeMillis());
+            Files.move(origemArq, destino, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("[INTEGRIDADE] Falha ao mover para quarentena " + rel + ": " + e.getMessage());
+            return false;
+        }
+        achados.put(rel, new Achado(rel, esperado, atual, origem, System.currentTimeMillis()));
+        return true;
+    }
+
+    /** Achados ordenados do mais recente para o mais antigo. */
+    List<Achado> achados() {
+        List<Achado> out = new ArrayList<>(achados.values());
+        out.sort(Comparator.comparingLong((Achado a) -> a.quando).reversed());
+        return out;
+    }
+}
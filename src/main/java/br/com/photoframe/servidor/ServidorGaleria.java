@@ -1,20 +1,24 @@
 package br.com.photoframe.servidor;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.rmi.server.UnicastRemoteObject;
+import java.security.MessageDigest;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -22,6 +26,8 @@ import java.util.Locale;
 import java.util.Map;
 
 import br.com.photoframe.compartilhado.GaleriaRemota;
+import br.com.photoframe.compartilhado.ItemExibicao;
+import br.com.photoframe.compartilhado.PaginaArquivos;
 import br.com.photoframe.compartilhado.PlaybackConfig;
 import br.com.photoframe.compartilhado.core.FileNameUtil;
 import br.com.photoframe.compartilhado.core.HashUtil;
@@ -30,19 +36,105 @@ import br.com.photoframe.compartilhado.core.HashUtil;
 
 public class ServidorGaleria extends UnicastRemoteObject implements GaleriaRemota {
     private static final String UPLOAD_DIR = "uploads";
-    private static final Path OWNER_INDEX = Paths.get(UPLOAD_DIR, ".owners.tsv");
-    private static final Path HASH_INDEX = Paths.get(UPLOAD_DIR, ".hashes.tsv");
-    private final List<String> fileQueue = new ArrayList<>();
-    private int currentFileIndex = -1;
+    private static final String OWNER_INDEX = ".owners.tsv";
+    private static final String HASH_INDEX = ".hashes.tsv";
+    private static final String INDEX_JOURNAL = ".index.journal";
+    // Compactação do journal: por volume de mutações ou por tempo desde a última compactação
+    private static final int COMPACT_MAX_ENTRIES = 10_000;
+    private static final long COMPACT_INTERVAL_MS = 5L * 60 * 1000;
+    // Uploads em partes: arquivos parciais ficam em uploads/.parts até o commit
+    private static final String PARTS_DIR = ".parts";
+    private static final long UPLOAD_SESSION_TTL_MS = 60L * 60 * 1000;
+    private static final int MAX_UPLOAD_SESSIONS = 64;
+    // Quanto tempo um commit concluído continua respondendo a repetições (resposta perdida no cliente)
+    private static final long COMMITTED_UPLOAD_TTL_MS = 15L * 60 * 1000;
+    // Snapshot binário do catálogo: lido na inicialização no lugar da varredura completa da árvore
+    private static final String CATALOG_SNAPSHOT = ".catalog.bin";
+    private static final long CATALOG_SNAPSHOT_INTERVAL_MIN = 5;
+    // Arquivos com hash divergente saem do catálogo para cá (índices de dono/hash são mantidos)
+    private static final String QUARANTINE_DIR = ".quarantine";
+    // Versões reduzidas (1080p/4K) das imagens, por MD5
+    private static final String RENDITIONS_DIR = ".renditions";
+    private static final String THUMBS_DIR = ".thumbs";
+    // Relógio do slideshow: espera máxima sem eventos e teto do long-poll do viewer
+    private static final long CLOCK_IDLE_MS = 60_000;
+    private static final long MAX_DISPLAY_WAIT_MS = 60_000;
+    // Candidatos examinados ao prever o próximo item (arquivos não exibíveis/inválidos são pulados)
+    private static final int PEEK_MAX_TRIES = 16;
+    // Listagem paginada: itens por página e caminhos examinados por chamada (limita o tempo sob o read lock
+    // quando o filtro de tipo descarta quase tudo)
+    static final int MAX_PAGE = 1000;
+    private static final int MAX_PAGE_SCAN = 10_000;
+    /*
+     * Concorrência:
+     * - catalogLock (leitura/escrita) protege fileQueue, fileOwner, filesByOwner, fileMd5, filesByMd5 e as gravações no journal;
+     *   listagens e consultas usam só o read lock e rodam em paralelo.
+     * - displayLock protege o estado da rotação (cursores); ordem de aquisição: displayLock → catalogLock.
+     *   Também é o monitor do relógio do slideshow e do long-poll (wait/notifyAll): quem muda o estado
+     *   chama signalDisplay() depois de soltar catalogLock/playbackLock.
+     * - playback e globalDateFilter são snapshots imutáveis publicados em campos volatile (leitura sem lock).
+     */
+    // Pasta base dos uploads e a dos envios em partes (uploads/.parts)
+    private final Path uploadDir;
+    private final Path partsDir;
+    private final java.util.concurrent.locks.ReentrantReadWriteLock catalogLock = new java.util.concurrent.locks.ReentrantReadWriteLock();
+    private final Object displayLock = new Object();
+    private final Object playbackLock = new Object();
+    private final Object compactLock = new Object();
+    private final CatalogoOrdenado fileQueue = new CatalogoOrdenado();
+    // Cursor da rotação: último arquivo escolhido (por chave, não por índice, para não deslocar em inserções/remoções)
+    private String rotationCursor = null;
     static final long MAX_BYTES = 100L * 1024 * 1024; // 100 MB (visível no pacote)
     private final Map<String, String> fileOwner = new HashMap<>();
+    // Índice secundário dono → caminhos ordenados (mantido junto com fileOwner por setOwner/clearOwner)
+    private final Map<String, java.util.TreeSet<String>> filesByOwner = new HashMap<>();
     private final Map<String, String> fileMd5 = new HashMap<>();
-    private final Map<String, Integer> dateLastIndex = new HashMap<>();
-    private String globalDateFilterPrefix = null;
-    private final PlaybackConfig playback = new PlaybackConfig();
-    private long lastSwitchAt = 0L;
-    private String lastServedRel = null;
-    private boolean holdCurrentUntilVideoEnds = false;
+    // Índice reverso md5 (maiúsculo) → caminhos com esse conteúdo (mantido junto com fileMd5 por setMd5/clearMd5)
+    private final Map<String, java.util.Set<String>> filesByMd5 = new HashMap<>();
+    // MD5s cujo conjunto em filesByMd5 esvaziou, à espera de dropOrphanedDerivatives()
+    private final java.util.Set<String> orphanedMd5 = java.util.concurrent.ConcurrentHashMap.newKeySet();
+    // Item atual do protocolo por descritor e sua versão (protegidos por displayLock)
+    private ItemExibicao currentItem = null;
+    private long displayVersion = 0L;
+    // Conta os signalDisplay(): o relógio não dorme se chegou sinal enquanto avaliava a troca fora do lock
+    private long displaySignals = 0L;
+    // Tela para a qual currentItem foi descrito e a última informada pelo viewer (usada pelo relógio)
+    private int describedWidth, describedHeight, screenWidth, screenHeight;
+    // Relógio do slideshow no servidor: só começa quando um viewer usa waitForDisplayChange
+    private final java.util.concurrent.atomic.AtomicBoolean clockStarted = new java.util.concurrent.atomic.AtomicBoolean(false);
+    // Último arquivo exibido por filtro de data (chave = forma canônica do filtro)
+    private final Map<String, String> dateLastServed = new HashMap<>();
+    private final JournalIndices indexJournal;
+    private volatile long lastCompactionAt = System.currentTimeMillis();
+    private final SnapshotCatalogo catalogSnapshot;
+    // Catálogo mudou desde o último snapshot gravado
+    private volatile boolean catalogDirty = false;
+    // Arquivos já conferidos (tamanho + mtime + md5): exibição não recalcula hash
+    private final CacheVerificacao verifiedCache = new CacheVerificacao();
+    private final VerificadorIntegridade scrubber;
+    private final VersoesExibicao renditions;
+    private final Miniaturas thumbnails;
+    private final Quarentena quarantine;
+    // Cópias diretas nas pastas do dia (rsync/NAS) entram no catálogo sem reinício
+    private final ObservadorUploads uploadWatcher;
+    // Notificações para o canal /events (null = ninguém ouvindo)
+    private volatile OuvinteGaleria listener;
+    // Destinos escolhidos por publicações cujo move ainda não terminou (ver moveToFreeTarget)
+    private final java.util.Set<Path> reservedTargets = java.util.concurrent.ConcurrentHashMap.newKeySet();
+    // Orçamento de bytes em voo, dividido entre uploads HTTP e sessões RMI em partes
+    private final ControleAdmissao admission = new ControleAdmissao(ServidorHttpUploader.HTTP_THREADS);
+    private final Map<String, SessaoUpload> uploadSessions = new java.util.concurrent.ConcurrentHashMap<>();
+    // Sessões já publicadas, mantidas por COMMITTED_UPLOAD_TTL_MS para o commit ser idempotente
+    private final Map<String, SessaoUpload> committedUploads = new java.util.concurrent.ConcurrentHashMap<>();
+    private final java.util.concurrent.ScheduledExecutorService maintenance = java.util.concurrent.Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "pf-manutencao"); t.setDaemon(true); return t;
+    });
+    private volatile FiltroData globalDateFilter = null;
+    // Substituído inteiro a cada alteração (copy-on-write); nunca é modificado depois de publicado
+    private volatile PlaybackConfig playback = initialPlayback();
+    private volatile long lastSwitchAt = 0L;
+    private volatile String lastServedRel = null;
+    private volatile boolean holdCurrentUntilVideoEnds = false;
     // Fila simples de comandos para suavizar picos de chamadas
     private final java.util.concurrent.BlockingQueue<Runnable> commandQueue = new java.util.concurrent.LinkedBlockingQueue<>();
     private final Thread commandWorker = new Thread(() -> {
@@ -50,15 +142,58 @@ public class ServidorGaleria extends UnicastRemoteObject implements GaleriaRemot
             try {
                 Runnable r = commandQueue.take();
                 try { r.run(); } catch (Throwable t) { System.err.println("[CMD] Erro ao executar comando: "+t); }
-            } catch (InterruptedException ie) { /* continua */ }
+            } catch (InterruptedException ie) { return; } // só encerrar() interrompe
         }
     }, "pf-cmd-worker");
+    private final Thread shutdownHook = new Thread(() -> { compactIndexes(); saveCatalogSnapshotIfDirty(); }, "pf-compactar-indices");
 
     public ServidorGaleria() throws RemoteException {
-        loadExistingFiles();
-        loadOwnerIndex();
-        loadHashIndex();
+        this(Paths.get(UPLOAD_DIR));
+    }
+
+    // Pasta de uploads informada (testes usam uma pasta temporária)
+    ServidorGaleria(Path uploadDir) throws RemoteException {
+        this.uploadDir = uploadDir;
+        this.partsDir = uploadDir.resolve(PARTS_DIR);
+        this.indexJournal = new JournalIndices(uploadDir.resolve(OWNER_INDEX), uploadDir.resolve(HASH_INDEX), uploadDir.resolve(INDEX_JOURNAL));
+        this.catalogSnapshot = new SnapshotCatalogo(uploadDir.resolve(CATALOG_SNAPSHOT));
+        this.scrubber = new VerificadorIntegridade(uploadDir, () -> readLocked(fileQueue::toList), this::onScrubbed);
+        this.renditions = new VersoesExibicao(uploadDir.resolve(RENDITIONS_DIR));
+        this.thumbnails = new Miniaturas(uploadDir.resolve(THUMBS_DIR));
+        this.quarantine = new Quarentena(uploadDir, uploadDir.resolve(QUARANTINE_DIR));
+        this.uploadWatcher = new ObservadorUploads(uploadDir, this::indexExternalFile, this::forgetExternalPath, this::reconcileCatalog);
+        boolean fromSnapshot = loadExistingFiles();
+        quarantine.carregar();
+        loadIndexes(!fromSnapshot);
     try { commandWorker.setDaemon(true); commandWorker.start(); } catch (Exception ignore) {}
+        // Observador antes da reconciliação: o que mudar durante a conferência não se perde
+        maintenance.execute(uploadWatcher::iniciar);
+        // Snapshot é confiado na partida e conferido com o disco em segundo plano
+        if (fromSnapshot) maintenance.execute(this::reconcileCatalog);
+        maintenance.scheduleWithFixedDelay(this::maybeCompactIndexes, 30, 30, java.util.concurrent.TimeUnit.SECONDS);
+        maintenance.scheduleWithFixedDelay(this::saveCatalogSnapshotIfDirty, CATALOG_SNAPSHOT_INTERVAL_MIN, CATALOG_SNAPSHOT_INTERVAL_MIN, java.util.concurrent.TimeUnit.MINUTES);
+        scrubber.iniciar();
+        cleanPartsDir();
+        maintenance.scheduleWithFixedDelay(this::expireUploadSessions, 5, 5, java.util.concurrent.TimeUnit.MINUTES);
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    // Compartilhado com o ServidorHttpUploader
+    ControleAdmissao admission() { return admission; }
+
+    /**
+     * Para as tarefas em segundo plano e grava índices/snapshot pendentes, como no desligamento do processo
+     * (usado pelos testes, que criam vários servidores na mesma JVM).
+     */
+    void encerrar() {
+        uploadWatcher.parar();
+        scrubber.parar();
+        maintenance.shutdownNow();
+        commandWorker.interrupt();
+        try { Runtime.getRuntime().removeShutdownHook(shutdownHook); } catch (IllegalStateException ignore) { /* já desligando */ }
+        shutdownHook.run();
+        indexJournal.fechar();
+        try { UnicastRemoteObject.unexportObject(this, true); } catch (java.rmi.NoSuchObjectException ignore) {}
     }
 
     // Log simples com horário para comandos recebidos
@@ -67,57 +202,347 @@ public class ServidorGaleria extends UnicastRemoteObject implements GaleriaRemot
         System.out.println("[CMD " + ts + "] " + msg);
     }
 
+    // Sem lock global: gravação e hash acontecem fora do catalogLock; só a publicação usa o write lock
     @Override
-    public synchronized boolean uploadFile(String fileName, byte[] fileData, String clientId) throws RemoteException {
+    public boolean uploadFile(String fileName, byte[] fileData, String clientId) throws RemoteException {
         if (fileName == null || fileData == null) return false;
         if (fileData.length == 0 || fileData.length > MAX_BYTES) { System.err.println("Upload rejeitado: tamanho inválido"); return false; }
+        try { return uploadStream(fileName, new ByteArrayInputStream(fileData), clientId); }
+        catch (IOException e) { System.err.println("Falha ao salvar arquivo: " + e.getMessage()); return false; }
+    }
+
+    /**
+     * Upload em streaming (usado pelo HTTP): o corpo é gravado num arquivo temporário oculto
+     * no diretório do dia enquanto o MD5 é calculado incrementalmente; ao fim do stream o arquivo
+     * é movido atomicamente para o nome final. Nunca mantém o arquivo inteiro em memória e só
+     * usa o write lock do catálogo para publicar a entrada pronta.
+     *
+     * @return true se o arquivo foi aceito e publicado
+     */
+    boolean uploadStream(String fileName, InputStream in, String clientId) throws IOException {
+        if (fileName == null || in == null) return false;
         fileName = FileNameUtil.sanitizeFileName(fileName);
         if (!FileNameUtil.isAllowedExtension(fileName)) { System.err.println("Upload rejeitado: extensão não permitida para: " + fileName); return false; }
         Date now = new Date();
+        Path dayDir = dayDirFor(now);
+        Files.createDirectories(dayDir);
+        // Prefixo "." mantém o temporário fora da varredura de arquivos existentes
+        Path tmp = dayDir.resolve(".upload-" + java.util.UUID.randomUUID() + ".part");
+        boolean published = false;
+        try {
+            MessageDigest md = HashUtil.newMd5();
+            long total = 0;
+            try (OutputStream out = Files.newOutputStream(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                byte[] buf = new byte[64 * 1024];
+                int r;
+                while ((r = in.read(buf)) != -1) {
+                    total += r;
+                    if (total > MAX_BYTES) { System.err.println("Upload rejeitado: maior que o limite (" + fileName + ")"); return false; }
+                    md.update(buf, 0, r);
+                    out.write(buf, 0, r);
+                }
+            }
+            if (total == 0) { System.err.println("Upload rejeitado: arquivo vazio (" + fileName + ")"); return false; }
+            String md5Hash = HashUtil.toHex(md.digest());
+            String rel = publishUpload(tmp, dayDir, uniqueFileName(now, fileName), clientId, md5Hash);
+            published = true;
+            System.out.println("UPLOAD Recebido! cliente="+clientId+" arquivo="+rel+" bytes="+total+" md5="+md5Hash);
+            return true;
+        } finally {
+            if (!published) { try { Files.deleteIfExists(tmp); } catch (IOException ignore) {} }
+        }
+    }
+
+    /**
+     * Upload em lote (HTTP /upload-batch): recebe todos os quadros do corpo em temporários (ver
+     * {@link LoteUpload}) e publica os aceitos juntos, num único trecho sob o write lock, com uma só
+     * escrita no journal de índices e um só aviso ao display.
+     *
+     * Uma falha ao mover um arquivo na publicação rejeita só aquele arquivo; os demais seguem publicados.
+     *
+     * @return o lote, com o caminho publicado de cada arquivo (null = rejeitado), na ordem do corpo
+     * @throws IOException se o corpo estiver truncado/malformado; nada é publicado nesse caso
+     */
+    LoteUpload uploadBatch(InputStream body, String clientId) throws IOException {
+        Date now = new Date();
+        Path dayDir = dayDirFor(now);
+        Files.createDirectories(dayDir);
+        LoteUpload lote = LoteUpload.receber(body, dayDir, MAX_BYTES);
+        try {
+            publishBatch(lote, now, dayDir, clientId);
+        } finally {
+            lote.descartar(); // temporários dos arquivos que não puderam ser publicados
+        }
+        return lote;
+    }
+
+    // Group commit: nomes reservados e arquivos movidos fora do lock; o write lock cobre só a inserção no
+    // catálogo/índices e uma única escrita no journal
+    private void publishBatch(LoteUpload lote, Date now, Path dayDir, String clientId) {
+        Map<String, String> owners = new java.util.LinkedHashMap<>();
+        Map<String, String> hashes = new java.util.LinkedHashMap<>();
+        boolean hasOwner = clientId != null && !clientId.isBlank();
+        for (LoteUpload.Arquivo a : lote.arquivos) {
+            if (a.tmp == null) continue;
+            Path target;
+            try {
+                target = moveToFreeTarget(a.tmp, dayDir, uniqueFileName(now, a.nome));
+            } catch (IOException | RuntimeException e) {
+                // Fica como rejeitado (path null na resposta); o temporário é apagado em descartar()
+                System.err.println("Falha ao publicar " + a.nome + " do lote: " + e.getMessage());
+                continue;
+            }
+            String rel = uploadDir.relativize(target).toString().replace('\\', '/');
+            a.relativePath = rel;
+            stampVerified(rel, target, a.md5);
+            if (hasOwner) owners.put(rel, clientId);
+            hashes.put(rel, a.md5);
+        }
+        if (hashes.isEmpty()) return;
+        catalogLock.writeLock().lock();
+        try {
+            hashes.forEach((rel, md5) -> {
+                fileQueue.add(rel);
+                quarantine.liberar(rel);
+                if (hasOwner) setOwner(rel, clientId);
+                setMd5(rel, md5);
+            });
+            catalogDirty = true;
+            indexJournal.registrarLote(owners, hashes);
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+        hashes.forEach((rel, md5) -> renditions.agendar(uploadDir.resolve(rel), md5));
+        System.out.println("UPLOAD Lote recebido! cliente=" + clientId + " arquivos=" + hashes.size() + "/" + lote.arquivos.size());
+        signalDisplay();
+        for (String rel : hashes.keySet()) notifyListener(l -> l.arquivoAdicionado(rel));
+    }
+
+    @Override
+    public String beginUpload(String fileName, long totalBytes, String clientId) throws RemoteException {
+        logCmd("beginUpload(fileName=" + fileName + ", bytes=" + totalBytes + ", clientId=" + clientId + ")");
+        if (fileName == null || totalBytes <= 0 || totalBytes > MAX_BYTES) { System.err.println("Upload rejeitado: tamanho inválido"); return null; }
+        String name = FileNameUtil.sanitizeFileName(fileName);
+        if (!FileNameUtil.isAllowedExtension(name)) { System.err.println("Upload rejeitado: extensão não permitida para: " + name); return null; }
+        if (uploadSessions.size() >= MAX_UPLOAD_SESSIONS) { System.err.println("Upload rejeitado: sessões demais em andamento"); return null; }
+        // A sessão fica aberta entre chamadas: o tamanho declarado sai do orçamento até o commit ou a expiração
+        ControleAdmissao.Vaga reserva = admission.reservarBytes(totalBytes);
+        if (reserva == null) { System.err.println("Upload rejeitado: orçamento de uploads esgotado (" + admission.estado() + ")"); return null; }
+        String id = java.util.UUID.randomUUID().toString();
+        try {
+            Files.createDirectories(partsDir);
+            uploadSessions.put(id, new SessaoUpload(id, name, totalBytes, clientId, partsDir.resolve(id + ".part"), reserva));
+            return id;
+        } catch (IOException e) {
+            reserva.close();
+            System.err.println("Falha ao iniciar sessão de upload: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public long appendUploadChunk(String uploadId, long offset, byte[] chunk) throws RemoteException {
+        SessaoUpload s = uploadId == null ? null : uploadSessions.get(uploadId);
+        if (s == null) return committedLength(uploadId);
+        try { return s.anexar(offset, chunk); }
+        catch (IOException e) {
+            // Devolver o total inalterado faria o cliente reenviar o mesmo bloco para sempre
+            System.err.println("[UPLOAD] Falha ao gravar bloco da sessão " + uploadId + ": " + e.getMessage());
+            throw new RemoteException("Falha ao gravar bloco no servidor: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public long getUploadedLength(String uploadId) throws RemoteException {
+        SessaoUpload s = uploadId == null ? null : uploadSessions.get(uploadId);
+        return s == null ? committedLength(uploadId) : s.recebido();
+    }
+
+    // Sessão já publicada conta como completa: o cliente que perdeu a resposta do commit vai direto repeti-lo
+    private long committedLength(String uploadId) {
+        SessaoUpload done = uploadId == null ? null : committedUploads.get(uploadId);
+        return done == null ? -1 : done.totalBytes;
+    }
+
+    @Override
+    public boolean commitUpload(String uploadId, String expectedMd5) throws RemoteException {
+        logCmd("commitUpload(id=" + uploadId + ")");
+        if (uploadId == null) return false;
+        SessaoUpload s = uploadSessions.get(uploadId);
+        if (s == null) s = committedUploads.get(uploadId);
+        if (s == null) return false;
+        // Serializa commits repetidos da mesma sessão: só o primeiro publica
+        synchronized (s) {
+            if (s.publicado() != null) {
+                System.out.println("[UPLOAD] Commit repetido da sessão " + uploadId + ": já publicada em " + s.publicado());
+                return true;
+            }
+            if (uploadSessions.get(uploadId) != s) return false; // descartada por outro commit/expiração
+            if (!s.completo()) { System.err.println("[UPLOAD] Sessão " + uploadId + " incompleta: " + s.recebido() + "/" + s.totalBytes); return false; }
+            String md5Hash = s.md5();
+            if (expectedMd5 != null && !expectedMd5.isBlank() && !md5Hash.equalsIgnoreCase(expectedMd5.trim())) {
+                System.err.println("[INTEGRIDADE] Upload " + s.fileName + " descartado - hash diverge (esperado " + expectedMd5 + ", recebido " + md5Hash + ")");
+                uploadSessions.remove(uploadId);
+                s.descartar();
+                return false;
+            }
+            s.fechar();
+            try {
+                Date now = new Date();
+                Path dayDir = dayDirFor(now);
+                Files.createDirectories(dayDir);
+                String rel = publishUpload(s.partFile, dayDir, uniqueFileName(now, s.fileName), s.clientId, md5Hash);
+                s.marcarPublicado(rel);
+                // Entra em committedUploads antes de sair de uploadSessions: uma repetição sempre acha a sessão
+                committedUploads.put(uploadId, s);
+                uploadSessions.remove(uploadId);
+                System.out.println("UPLOAD Recebido! cliente="+s.clientId+" arquivo="+rel+" bytes="+s.totalBytes+" md5="+md5Hash);
+                return true;
+            } catch (IOException e) {
+                System.err.println("Falha ao salvar arquivo: " + e.getMessage());
+                uploadSessions.remove(uploadId);
+                s.descartar();
+                return false;
+            }
+        }
+    }
+
+    private void expireUploadSessions() {
+        uploadSessions.values().removeIf(s -> {
+            if (s.inativoHaMillis() < UPLOAD_SESSION_TTL_MS) return false;
+            System.out.println("[UPLOAD] Sessão expirada: " + s.id + " (" + s.fileName + ")");
+            s.descartar();
+            return true;
+        });
+        committedUploads.values().removeIf(s -> s.inativoHaMillis() >= COMMITTED_UPLOAD_TTL_MS);
+    }
+
+    // Sessões vivem só em memória: parciais de uma execução anterior não podem ser retomados
+    private void cleanPartsDir() {
+        if (!Files.isDirectory(partsDir)) return;
+        try (var parts = Files.list(partsDir)) {
+            parts.forEach(p -> { try { Files.deleteIfExists(p); } catch (IOException ignore) {} });
+        } catch (IOException e) { System.err.println("Falha ao limpar uploads parciais: " + e.getMessage()); }
+    }
+
+    // Nome livre e move fora do lock; o write lock cobre só o registro no catálogo/índices
+    private String publishUpload(Path tmp, Path dayDir, String uniqueFileName, String clientId, String md5Hash) throws IOException {
+        Path target = moveToFreeTarget(tmp, dayDir, uniqueFileName);
+        String relativePath = uploadDir.relativize(target).toString().replace('\\', '/');
+        stampVerified(relativePath, target, md5Hash); // MD5 acabou de ser calculado sobre este conteúdo
+        catalogLock.writeLock().lock();
+        try {
+            registerUpload(relativePath, clientId, md5Hash);
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+        renditions.agendar(target, md5Hash);
+        signalDisplay(); // galeria vazia passa a ter o que exibir
+        notifyListener(l -> l.arquivoAdicionado(relativePath));
+        return relativePath;
+    }
+
+    // Inserção O(log n) no catálogo ordenado; cursores são chaves e não precisam de ajuste. Requer o write lock.
+    private void registerUpload(String relativePath, String clientId, String md5Hash) {
+        fileQueue.add(relativePath);
+        quarantine.liberar(relativePath);
+        catalogDirty = true;
+        if (clientId != null && !clientId.isBlank()) { setOwner(relativePath, clientId); indexJournal.registrarDono(relativePath, clientId); }
+        setMd5(relativePath, md5Hash);
+        indexJournal.registrarHash(relativePath, md5Hash);
+    }
+
+    private Path dayDirFor(Date now) {
         String year = new SimpleDateFormat("yyyy", Locale.ROOT).format(now);
         String month = new SimpleDateFormat("MM", Locale.ROOT).format(now);
         String day = new SimpleDateFormat("dd", Locale.ROOT).format(now);
-        String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.ROOT).format(now);
-        String uniqueFileName = timestamp + "_" + fileName;
-        Path dayDir = Paths.get(UPLOAD_DIR, year, month, day);
-        try { Files.createDirectories(dayDir); } catch (IOException e) { System.err.println("Falha ao criar diretórios: " + e.getMessage()); return false; }
-        Path filePath = dayDir.resolve(uniqueFileName);
-        try (FileOutputStream fos = new FileOutputStream(filePath.toFile())) {
-            fos.write(fileData);
-            String md5Hash = HashUtil.md5Hex(fileData);
-            System.out.println("UPLOAD Recebido! cliente="+clientId+" arquivo="+filePath+" bytes="+fileData.length+" md5="+md5Hash);
-            String relativePath = Paths.get(UPLOAD_DIR).relativize(filePath).toString().replace('\\', '/');
-            fileQueue.add(relativePath);
-            Collections.sort(fileQueue);
-            if (clientId != null && !clientId.isBlank()) fileOwner.put(relativePath, clientId);
-            fileMd5.put(relativePath, md5Hash);
-            saveOwnerIndex(); saveHashIndex();
-            return true;
-        } catch (IOException e) { System.err.println("Falha ao salvar arquivo: " + e.getMessage()); return false; }
+        return uploadDir.resolve(year).resolve(month).resolve(day);
+    }
+
+    private static String uniqueFileName(Date now, String fileName) {
+        return new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.ROOT).format(now) + "_" + fileName;
+    }
+
+    // Dois envios do mesmo nome no mesmo segundo não podem se sobrescrever: acrescenta _2, _3... O nome fica
+    // reservado em memória até o arquivo existir no destino, já que a escolha e o move acontecem sem lock
+    private Path moveToFreeTarget(Path tmp, Path dayDir, String name) throws IOException {
+        Path candidate = dayDir.resolve(name);
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String ext = dot > 0 ? name.substring(dot) : "";
+        // Reserva antes de olhar o disco: a reserva de outro só é solta depois que o arquivo dele existe
+        for (int i = 2; !reserveIfFree(candidate); i++) candidate = dayDir.resolve(base + "_" + i + ext);
+        try {
+            Files.move(tmp, candidate, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            reservedTargets.remove(candidate);
+        }
+        return candidate;
+    }
+
+    private boolean reserveIfFree(Path candidate) {
+        if (!reservedTargets.add(candidate)) return false;
+        if (!Files.exists(candidate)) return true;
+        reservedTargets.remove(candidate);
+        return false;
     }
 
     // Lista todos os caminhos relativos (exibível por qualquer cliente)
-    @Override public synchronized List<String> getFileList() {
+    @Override public List<String> getFileList() {
         logCmd("getFileList() chamado");
-        return new ArrayList<>(fileQueue);
+        return readLocked(fileQueue::toList);
     }
     // Lista apenas os caminhos relativos pertencentes a um determinado cliente
-    @Override public synchronized List<String> getFileListByClient(String clientId) {
+    @Override public List<String> getFileListByClient(String clientId) {
         logCmd("getFileListByClient(clientId=" + clientId + ")");
         if (clientId==null||clientId.isBlank()) return List.of();
-        List<String> out=new ArrayList<>();
-        for(String rel:fileQueue){ if (clientId.equals(fileOwner.get(rel))) out.add(rel);} return out;
+        return readLocked(() -> {
+            java.util.TreeSet<String> own = filesByOwner.get(clientId);
+            return own == null ? new ArrayList<>() : new ArrayList<>(own);
+        });
+    }
+
+    @Override public PaginaArquivos listFiles(String cursor, int limit, String prefix, String type) {
+        logCmd("listFiles(cursor=" + cursor + ", limit=" + limit + ", prefix=" + prefix + ", type=" + type + ")");
+        return readLocked(() -> page(fileQueue::ceiling, fileQueue::higher, cursor, limit, prefix, type));
+    }
+
+    @Override public PaginaArquivos listFilesByClient(String clientId, String cursor, int limit, String prefix, String type) {
+        logCmd("listFilesByClient(clientId=" + clientId + ", cursor=" + cursor + ", limit=" + limit + ")");
+        if (clientId == null || clientId.isBlank()) return new PaginaArquivos();
+        return readLocked(() -> {
+            java.util.TreeSet<String> own = filesByOwner.get(clientId);
+            return own == null ? new PaginaArquivos() : page(own::ceiling, own::higher, cursor, limit, prefix, type);
+        });
+    }
+
+    // Percorre o conjunto ordenado a partir do cursor (exclusivo) ou do prefixo; requer o read lock
+    private static PaginaArquivos page(java.util.function.UnaryOperator<String> ceiling, java.util.function.UnaryOperator<String> higher,
+                                       String cursor, int limit, String prefix, String type) {
+        String from = prefix == null ? "" : prefix;
+        String wanted = type == null || type.isBlank() ? null : type.toLowerCase(Locale.ROOT);
+        int max = Math.max(1, Math.min(limit, MAX_PAGE));
+        PaginaArquivos out = new PaginaArquivos();
+        String last = null;
+        String r = cursor != null && cursor.compareTo(from) >= 0 ? higher.apply(cursor) : ceiling.apply(from);
+        for (int scanned = 0; r != null && r.startsWith(from) && out.items.size() < max && scanned < MAX_PAGE_SCAN; scanned++) {
+            if (wanted == null || mediaTypeOf(r).startsWith(wanted)) out.items.add(r);
+            last = r;
+            r = higher.apply(r);
+        }
+        if (r != null && r.startsWith(from) && last != null) out.nextCursor = last;
+        return out;
     }
 
     // Lê bytes de um arquivo se o cliente informado for o dono; caso contrário retorna null
     // Este método garante que apenas o dono do arquivo pode acessá-lo
-    @Override public synchronized byte[] readFileIfOwner(String clientId, String relativePath) {
+    @Override public byte[] readFileIfOwner(String clientId, String relativePath) {
         logCmd("readFileIfOwner(clientId=" + clientId + ", path=" + relativePath + ")");
         // Validação básica: cliente e caminho devem estar preenchidos
         if (clientId==null||clientId.isBlank()||relativePath==null||relativePath.isBlank()) return null;
         
-        // Busca o dono registrado do arquivo
-        String owner = fileOwner.get(relativePath);
+        // Busca o dono registrado do arquivo (leitura e hash acontecem fora do lock)
+        String owner = readLocked(() -> fileOwner.get(relativePath));
         
         // Se não há dono registrado ou o cliente não é o dono, nega acesso
         if (owner==null || !owner.equals(clientId)) return null;
@@ -126,6 +551,37 @@ public class ServidorGaleria extends UnicastRemoteObject implements GaleriaRemot
         return tryReadValid(relativePath);
     }
 
+    /**
+     * Arquivo do cliente para a rota HTTP /file (streaming), com a mesma regra de acesso de {@link #readFileIfOwner}.
+     * Já conferido e inalterado custa um stat; senão o MD5 é calculado em blocos, sem carregar o arquivo
+     * na memória. Depois disso {@link #verifiedMd5} devolve o hash (usado como ETag).
+     *
+     * @return caminho do arquivo, ou null se não for dono, não existir ou o hash divergir (vai para a quarentena)
+     */
+    Path fileIfOwner(String clientId, String relativePath) {
+        if (clientId==null||clientId.isBlank()||relativePath==null||relativePath.isBlank()) return null;
+        String owner = readLocked(() -> fileOwner.get(relativePath));
+        if (owner==null || !owner.equals(clientId)) return null;
+        return verifyFile(relativePath, "download") != null ? uploadDir.resolve(relativePath) : null;
+    }
+
+    /**
+     * Miniatura JPEG do arquivo (rota HTTP /thumb), com a mesma regra de acesso de {@link #readFileIfOwner}.
+     * O original só é lido/conferido se ainda não tiver sido verificado; depois disso o custo é um stat.
+     *
+     * @return arquivo da miniatura (nome = md5 do original), ou null se não for dono, inválido ou sem suporte
+     */
+    Path thumbnailIfOwner(String clientId, String relativePath) {
+        if (clientId==null||clientId.isBlank()||relativePath==null||relativePath.isBlank()) return null;
+        if (!VersoesExibicao.suportado(relativePath)) return null;
+        String owner = readLocked(() -> fileOwner.get(relativePath));
+        if (owner==null || !owner.equals(clientId)) return null;
+        String md5 = verifyFile(relativePath, "miniatura");
+        if (md5 == null) return null;
+        Path source = renditions.menorExistente(md5);
+        return thumbnails.obter(md5, source != null ? source : uploadDir.resolve(relativePath));
+    }
+
     /**
      * Método principal que retorna próximo arquivo para exibição no viewer
      * Este é o coração do slideshow - decide qual arquivo entregar baseado em:
@@ -136,38 +592,325 @@ public class ServidorGaleria extends UnicastRemoteObject implements GaleriaRemot
      * - Tempo desde última troca
      */
     @Override
-    public synchronized byte[] getNextDisplayFile() throws RemoteException {
-        // Se não há arquivos, não há o que exibir
-        if (fileQueue.isEmpty()) { 
-            System.out.println("[DEBUG] Fila vazia - nenhum arquivo para exibir");
-            return null; 
+    public byte[] getNextDisplayFile() throws RemoteException {
+        // Só o estado da rotação é serializado; listagens e uploads não esperam por este lock
+        verifyUpcoming();
+        synchronized (displayLock) {
+            return nextDisplayFileLocked(this::tryReadValid);
         }
-        
-        // Se slideshow está pausado, não avança
-        if (playback.paused) {
-            System.out.println("[DEBUG] Slideshow pausado");
+    }
+
+    /**
+     * Igual a {@link #getNextDisplayFile()}, mas para imagens devolve a versão de exibição que cobre
+     * a tela informada (1080p/4K), quando já existir; senão o original.
+     */
+    @Override
+    public byte[] getNextDisplayFileForScreen(int width, int height) throws RemoteException {
+        verifyUpcoming();
+        synchronized (displayLock) {
+            return nextDisplayFileLocked(rel -> readForScreen(rel, width, height));
+        }
+    }
+
+    /**
+     * Protocolo por descritor: aplica a mesma regra de troca de {@link #getNextDisplayFile()}, mas devolve
+     * só o descritor do item atual (sem bytes). {@code displayVersion} só muda quando o item muda.
+     */
+    @Override
+    public ItemExibicao getNextDisplayItem(int width, int height) throws RemoteException {
+        return advanceDisplay(width, height);
+    }
+
+    /**
+     * Long-poll do display: bloqueia até o item mudar ({@code displayVersion != knownVersion}), a
+     * configuração de reprodução mudar, ou o timeout (devolve null). As trocas são feitas pelo relógio
+     * do slideshow no servidor, então um viewer parado não gera tráfego nem log.
+     */
+    @Override
+    public ItemExibicao waitForDisplayChange(long knownVersion, int width, int height, long timeoutMillis) throws RemoteException {
+        if (clockStarted.compareAndSet(false, true)) {
+            Thread clock = new Thread(this::runSlideshowClock, "pf-slideshow");
+            clock.setDaemon(true);
+            clock.start();
+        }
+        long deadline = System.currentTimeMillis() + Math.max(0, Math.min(timeoutMillis, MAX_DISPLAY_WAIT_MS));
+        synchronized (displayLock) {
+            screenWidth = width;
+            screenHeight = height;
+            long configVersion = playback.version;
+            while (displayVersion == knownVersion && playback.version == configVersion) {
+                long left = deadline - System.currentTimeMillis();
+                if (left <= 0) return null;
+                try { displayLock.wait(left); } catch (InterruptedException e) { Thread.currentThread().interrupt(); return null; }
+            }
+            return currentItemFor(width, height);
+        }
+    }
+
+    /**
+     * Prevê o próximo item com as mesmas prioridades de {@link #nextDisplayFileLocked} (forçado, filtro de
+     * data, rotação), sem mexer em cursores nem remover arquivos inválidos: candidatos que não descrevem
+     * são só pulados. Também agenda a versão de exibição do próximo item, se ainda não existir.
+     */
+    @Override
+    public ItemExibicao peekNextDisplayItem(int width, int height) throws RemoteException {
+        List<String> candidates;
+        synchronized (displayLock) { candidates = upcomingLocked(PEEK_MAX_TRIES); }
+        // Validação/descrição fora do displayLock (pode calcular o MD5 de um arquivo grande)
+        for (String rel : candidates) {
+            ItemExibicao item = describe(rel, width, height);
+            if (item != null) return item;
+        }
+        return null;
+    }
+
+    // Próximos candidatos exibíveis na ordem em que a troca os tentaria (forçado, filtro de data ou
+    // rotação), sem mexer em cursores; requer displayLock
+    private List<String> upcomingLocked(int max) {
+        List<String> out = new ArrayList<>();
+        PlaybackConfig cfg = playback;
+        if (cfg.paused || readLocked(fileQueue::isEmpty)) return out;
+        String forcedRel = cfg.forcedRelativePath;
+        if (forcedRel != null && isDisplayable(forcedRel)) { out.add(forcedRel); return out; }
+        FiltroData dateFilter = globalDateFilter;
+        String cursor = dateFilter != null ? dateLastServed.get(dateFilter.texto) : rotationCursor;
+        for (int tries = 0; tries < PEEK_MAX_TRIES && out.size() < max; tries++) {
+            final String after = cursor;
+            String rel = readLocked(() -> {
+                if (dateFilter == null) return nextInRotation(after);
+                String r = after == null ? null : fileQueue.higher(after);
+                return r == null || !dateFilter.contem(r) ? fileQueue.ceiling(dateFilter.inicio) : r;
+            });
+            if (rel == null || (dateFilter != null && !dateFilter.contem(rel)) || out.contains(rel)) break;
+            cursor = rel;
+            if (isDisplayable(rel)) out.add(rel);
+        }
+        return out;
+    }
+
+    // Troca devida agora pela regra do slideshow (sem forçado); requer displayLock
+    private boolean switchDueLocked(PlaybackConfig cfg) {
+        return lastServedRel == null
+                || (!holdCurrentUntilVideoEnds && System.currentTimeMillis() - lastSwitchAt >= Math.max(1000, cfg.intervalMillis));
+    }
+
+    // Aplica a regra de troca com o arquivo de destino já conferido fora do displayLock
+    private ItemExibicao advanceDisplay(int width, int height) {
+        verifyUpcoming();
+        synchronized (displayLock) {
+            return advanceDisplayLocked(width, height);
+        }
+    }
+
+    /**
+     * Confere fora do displayLock o arquivo que a próxima troca vai usar, para que a troca sob o lock só
+     * precise de um stat. O MD5 é calculado em blocos; arquivo divergente vai para a quarentena e sai dos
+     * candidatos, e a volta seguinte confere o próximo. Se algo mudar antes da troca, ela ainda valida por
+     * conta própria como antes.
+     */
+    private void verifyUpcoming() {
+        for (int tries = 0; tries < PEEK_MAX_TRIES; tries++) {
+            String pending;
+            synchronized (displayLock) {
+                PlaybackConfig cfg = playback;
+                List<String> next = cfg.forcedRelativePath != null || switchDueLocked(cfg) ? upcomingLocked(1) : List.of();
+                pending = next.isEmpty() ? null : next.get(0);
+            }
+            if (pending == null || verifiedMd5(pending) != null) return;
+            // Ilegível, mas ainda no catálogo (não isolado): a troca sob o lock decide o que fazer com ele
+            if (verifyFile(pending, "exibicao") == null && readLocked(() -> fileQueue.contains(pending))) return;
+        }
+    }
+
+    // Aplica a regra de troca e devolve o item atual (requer displayLock)
+    private ItemExibicao advanceDisplayLocked(int width, int height) {
+        ItemExibicao next = nextDisplayFileLocked(rel -> describe(rel, width, height));
+        if (next != null) adoptItem(next, width, height);
+        // Sem troca agora: mantém o item atual, acompanhando lastServedRel (pode ter mudado por
+        // getNextDisplayFile ou sido removido/isolado)
+        String rel = lastServedRel;
+        if (rel == null) currentItem = null;
+        else if (currentItem == null || !currentItem.relativePath.equals(rel)) adoptItem(describe(rel, width, height), width, height);
+        return currentItem;
+    }
+
+    // Item atual descrito para a tela informada (o relógio pode tê-lo descrito para outra); requer displayLock
+    private ItemExibicao currentItemFor(int width, int height) {
+        ItemExibicao item = currentItem;
+        if (item == null || (width == describedWidth && height == describedHeight)) return item;
+        ItemExibicao again = describe(item.relativePath, width, height);
+        if (again == null) return item;
+        again.displayVersion = item.displayVersion;
+        currentItem = again;
+        describedWidth = width;
+        describedHeight = height;
+        return again;
+    }
+
+    // Requer displayLock; a versão só avança quando o caminho muda (e acorda quem espera no long-poll)
+    private void adoptItem(ItemExibicao item, int width, int height) {
+        if (item == null) { currentItem = null; return; }
+        if (currentItem != null && currentItem.relativePath.equals(item.relativePath)) return;
+        item.displayVersion = ++displayVersion;
+        currentItem = item;
+        describedWidth = width;
+        describedHeight = height;
+        displayLock.notifyAll();
+        notifyListener(l -> l.exibicaoAlterada(item));
+    }
+
+    /**
+     * Relógio do slideshow: aplica a regra de troca quando ela vence e dorme até a próxima troca, ou até
+     * um evento (controle, upload, remoção, next/previous) chamar signalDisplay().
+     */
+    private void runSlideshowClock() {
+        while (true) {
+            try {
+                long seen;
+                int width, height;
+                synchronized (displayLock) { seen = displaySignals; width = screenWidth; height = screenHeight; }
+                advanceDisplay(width, height);
+                synchronized (displayLock) {
+                    // Sinal recebido enquanto a troca era avaliada fora do lock: reavalia sem dormir
+                    if (displaySignals == seen) displayLock.wait(clockDelayLocked());
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                System.err.println("[DISPLAY] Erro no relógio do slideshow: " + e);
+                try { Thread.sleep(1000); } catch (InterruptedException ie) { return; }
+            }
+        }
+    }
+
+    // Tempo até a próxima troca pela regra atual; sem troca prevista, só acorda por evento (requer displayLock)
+    private long clockDelayLocked() {
+        PlaybackConfig cfg = playback;
+        if (cfg.paused || cfg.forcedRelativePath != null || holdCurrentUntilVideoEnds || currentItem == null) return CLOCK_IDLE_MS;
+        long due = lastSwitchAt + Math.max(1000, cfg.intervalMillis) - System.currentTimeMillis();
+        return Math.max(10, Math.min(due, CLOCK_IDLE_MS));
+    }
+
+    // Acorda o relógio e o long-poll para reavaliar o estado do display
+    private void signalDisplay() {
+        synchronized (displayLock) { displaySignals++; displayLock.notifyAll(); }
+    }
+
+    /**
+     * Conteúdo de um descritor: original ({@code renditionHeight} 0) ou versão de exibição, pelo MD5 do original.
+     * Só serve arquivos do catálogo cujo conteúdo confere com o hash.
+     */
+    @Override
+    public byte[] getContentByHash(String contentHash, int renditionHeight) throws RemoteException {
+        if (contentHash == null || contentHash.isBlank()) return null;
+        String key = contentHash.toUpperCase(Locale.ROOT);
+        for (String rel : catalogPathsWithMd5(key)) {
+            if (renditionHeight > 0) {
+                if (verifyFile(rel, "exibicao") == null) continue;
+                byte[] rendition = renditions.lerAltura(key, renditionHeight);
+                if (rendition != null) return rendition;
+            }
+            byte[] original = tryReadValid(rel);
+            if (original != null) return original;
+        }
+        return null;
+    }
+
+    /**
+     * Arquivo com o conteúdo de um descritor (versão de exibição ou original), para a rota HTTP /media.
+     * O original é conferido em blocos (sem carregar na memória); null se o hash não existe/não confere.
+     */
+    Path contentFileByHash(String contentHash, int renditionHeight) {
+        if (contentHash == null || contentHash.isBlank()) return null;
+        String key = contentHash.toUpperCase(Locale.ROOT);
+        for (String rel : catalogPathsWithMd5(key)) {
+            if (verifyFile(rel, "midia") == null) continue;
+            if (renditionHeight > 0) {
+                Path rendition = renditions.caminho(key, renditionHeight);
+                if (rendition != null) return rendition;
+            }
+            return uploadDir.resolve(rel);
+        }
+        return null;
+    }
+
+    // Caminhos do catálogo com o MD5 (maiúsculo) informado
+    private List<String> catalogPathsWithMd5(String key) {
+        return readLocked(() -> {
+            java.util.Set<String> set = filesByMd5.get(key);
+            List<String> out = new ArrayList<>();
+            if (set != null) for (String r : set) if (fileQueue.contains(r)) out.add(r);
+            return out;
+        });
+    }
+
+    // Descritor do arquivo (confere o original em blocos se ainda não conferido); null se inválido
+    private ItemExibicao describe(String rel, int width, int height) {
+        String md5 = verifyFile(rel, "exibicao");
+        if (md5 == null) return null;
+        Path original = uploadDir.resolve(rel);
+        ItemExibicao item = new ItemExibicao();
+        item.relativePath = rel;
+        item.contentHash = md5.toUpperCase(Locale.ROOT);
+        item.mediaType = mediaTypeOf(rel);
+        try {
+            if (VersoesExibicao.suportado(rel)) {
+                int[] dims = renditions.dimensoes(item.contentHash, original);
+                item.width = dims[0];
+                item.height = dims[1];
+                item.renditionHeight = width > 0 && height > 0 ? renditions.escolherAltura(item.contentHash, width, height) : 0;
+                if (item.renditionHeight == 0) renditions.agendar(original, item.contentHash);
+            }
+            Path payload = item.renditionHeight > 0 ? renditions.caminho(item.contentHash, item.renditionHeight) : original;
+            if (payload == null) { item.renditionHeight = 0; payload = original; }
+            item.sizeBytes = Files.size(payload);
+        } catch (IOException e) {
             return null;
         }
+        return item;
+    }
+
+    static String mediaTypeOf(String rel) {
+        String low = rel.toLowerCase(Locale.ROOT);
+        if (low.endsWith(".png")) return "image/png";
+        if (low.endsWith(".jpg") || low.endsWith(".jpeg")) return "image/jpeg";
+        if (low.endsWith(".heic")) return "image/heic";
+        if (low.endsWith(".heif")) return "image/heif";
+        if (low.endsWith(".mp4")) return "video/mp4";
+        return "application/octet-stream";
+    }
+
+    // loader: lê/valida o arquivo escolhido (bytes do original ou da versão, ou descritor); null se inválido
+    private <T> T nextDisplayFileLocked(java.util.function.Function<String, T> loader) {
+        // Se não há arquivos, não há o que exibir (sem log: é chamado a cada consulta/tique do relógio)
+        if (readLocked(fileQueue::isEmpty)) return null;
+        
+        // Snapshot da configuração para esta chamada
+        PlaybackConfig cfg = playback;
+
+        // Se slideshow está pausado, não avança
+        if (cfg.paused) return null;
         
         // PRIORIDADE 1: Arquivo forçado (quando usuário seleciona arquivo específico)
-        if (playback.forcedRelativePath != null) {
+        String forcedRel = cfg.forcedRelativePath;
+        if (forcedRel != null) {
             // Se o tipo não é suportado para exibição, ignora e limpa
-            if (!isDisplayable(playback.forcedRelativePath)) {
-                System.err.println("[DEBUG] Arquivo forçado não suportado para exibição: " + playback.forcedRelativePath);
-                playback.forcedRelativePath = null;
+            if (!isDisplayable(forcedRel)) {
+                System.err.println("[DEBUG] Arquivo forçado não suportado para exibição: " + forcedRel);
+                clearForcedIf(forcedRel);
             } else {
-                byte[] forced = tryReadValid(playback.forcedRelativePath);
+                T forced = loader.apply(forcedRel);
                 if (forced != null) {
-                    // Arquivo forçado válido - exibe este
-                    lastServedRel = playback.forcedRelativePath;
-                    holdCurrentUntilVideoEnds = isVideo(lastServedRel);
+                    // Arquivo forçado válido - exibe este (loga só quando passa a ser exibido)
+                    if (!forcedRel.equals(lastServedRel)) System.out.println("[DEBUG] Exibindo arquivo forçado: " + forcedRel);
+                    lastServedRel = forcedRel;
+                    holdCurrentUntilVideoEnds = isVideo(forcedRel);
                     lastSwitchAt = System.currentTimeMillis();
-                    System.out.println("[DEBUG] Exibindo arquivo forçado: " + playback.forcedRelativePath);
                     return forced;
                 } else {
                     // Arquivo forçado inválido/corrompido - limpa configuração
-                    System.err.println("[INTEGRIDADE] Arquivo forçado inválido: " + playback.forcedRelativePath);
-                    playback.forcedRelativePath = null;
+                    System.err.println("[INTEGRIDADE] Arquivo forçado inválido: " + forcedRel);
+                    clearForcedIf(forcedRel);
                 }
             }
         }
@@ -175,15 +918,16 @@ public class ServidorGaleria extends UnicastRemoteObject implements GaleriaRemot
         // Calcula se é hora de trocar de arquivo
         long now = System.currentTimeMillis();
         boolean shouldSwitch = !holdCurrentUntilVideoEnds && 
-                              (now - lastSwitchAt) >= Math.max(1000, playback.intervalMillis);
+                              (now - lastSwitchAt) >= Math.max(1000, cfg.intervalMillis);
         
         // PRIORIDADE 2: Filtro de data (quando usuário filtra por dia específico)
-        if (globalDateFilterPrefix != null) {
+        FiltroData dateFilter = globalDateFilter;
+        if (dateFilter != null) {
             if (shouldSwitch || lastServedRel == null) {
-                byte[] byDate = getNextDisplayFileByDate(globalDateFilterPrefix);
+                T byDate = nextByDateFilter(dateFilter, loader);
                 if (byDate != null) { 
                     lastSwitchAt = now;
-                    System.out.println("[DEBUG] Exibindo por filtro de data: " + globalDateFilterPrefix);
+                    System.out.println("[DEBUG] Exibindo por filtro de data: " + dateFilter.texto);
                     return byDate; 
                 }
             }
@@ -196,38 +940,39 @@ public class ServidorGaleria extends UnicastRemoteObject implements GaleriaRemot
         // PRIORIDADE 3: Rotação normal da fila
         if (shouldSwitch || lastServedRel == null) {
             int tries = 0;
-            while (tries < fileQueue.size()) {
+            int total = readLocked(fileQueue::size);
+            while (tries < total) {
                 // Avança para próximo arquivo na fila (circular)
-                currentFileIndex = (currentFileIndex + 1) % fileQueue.size();
-                String relative = fileQueue.get(currentFileIndex);
+                String relative = readLocked(() -> nextInRotation(rotationCursor));
+                if (relative == null) break;
+                rotationCursor = relative;
 
                 // Ignora tipos não suportados para exibição (ex.: HEIC/HEIF)
                 if (!isDisplayable(relative)) {
-                    System.out.println("[DEBUG] Ignorando não suportado para exibição: " + relative);
                     tries++;
                     continue;
                 }
                 
-                System.out.println("[DEBUG] Tentando arquivo: " + relative);
-                
                 // Tenta ler e validar arquivo
-                byte[] b = tryReadValid(relative);
+                T b = loader.apply(relative);
                 if (b != null) {
                     // Arquivo válido - sucesso!
                     lastSwitchAt = now;
                     lastServedRel = relative;
                     holdCurrentUntilVideoEnds = isVideo(relative);
-                    System.out.println("[DEBUG] Enviando para Display: " + Paths.get(UPLOAD_DIR).resolve(relative).getFileName());
+                    System.out.println("[DEBUG] Enviando para Display: " + uploadDir.resolve(relative).getFileName());
                     return b;
                 } else {
-                    // Arquivo inválido/corrompido - remove da fila e tenta próximo
-                    System.err.println("[INTEGRIDADE] Removendo arquivo inválido da fila: " + relative);
-                    removeFromIndexes(relative, currentFileIndex);
-                    // Ajusta índice para reavaliar posição atual
-                    currentFileIndex = (currentFileIndex - 1 + Math.max(1, fileQueue.size())) % Math.max(1, fileQueue.size());
+                    // Arquivo inválido/corrompido - já saiu da fila para a quarentena (ou sumiu: sai da fila) e tenta
+                    // próximo; se ainda existe (ex.: sendo regravado), só é pulado desta vez
+                    // (o cursor continua válido: higher() funciona mesmo após a remoção da chave)
+                    if (readLocked(() -> fileQueue.contains(relative)) && !Files.exists(uploadDir.resolve(relative))) {
+                        System.err.println("[INTEGRIDADE] Removendo arquivo inválido da fila: " + relative);
+                        removeFromIndexes(relative);
+                    }
                 }
                 tries++;
-                if (fileQueue.isEmpty()) break; // Se fila ficou vazia, para
+                if (readLocked(fileQueue::isEmpty)) break; // Se fila ficou vazia, para
             }
         }
         
@@ -237,9 +982,22 @@ public class ServidorGaleria extends UnicastRemoteObject implements GaleriaRemot
         }
         
         // Não há nada válido para exibir
-        System.out.println("[DEBUG] Nenhum arquivo válido encontrado");
         return null;
-    }    private static boolean isVideo(String relativePath) { String p = relativePath.toLowerCase(Locale.ROOT); return p.endsWith(".mp4"); }
+    }
+
+    // Próximo arquivo após o cursor, voltando ao início no fim da fila (requer o read lock)
+    private String nextInRotation(String cursor) {
+        String next = cursor == null ? null : fileQueue.higher(cursor);
+        return next != null ? next : fileQueue.first();
+    }
+
+    // Arquivo antes do cursor, voltando ao fim da fila no início (requer o read lock)
+    private String previousInRotation(String cursor) {
+        String prev = cursor == null ? null : fileQueue.lower(cursor);
+        return prev != null ? prev : fileQueue.last();
+    }
+
+    private static boolean isVideo(String relativePath) { String p = relativePath.toLowerCase(Locale.ROOT); return p.endsWith(".mp4"); }
     private static boolean isDisplayable(String relativePath) {
         String p = relativePath.toLowerCase(Locale.ROOT);
         return p.endsWith(".jpg") || p.endsWith(".jpeg") || p.endsWith(".png") || p.endsWith(".mp4");
@@ -247,129 +1005,472 @@ public class ServidorGaleria extends UnicastRemoteObject implements GaleriaRemot
     @Override public void next() {
         logCmd("next() enfileirado");
         commandQueue.offer(() -> {
-            synchronized (ServidorGaleria.this) {
-                holdCurrentUntilVideoEnds = false;
-                lastSwitchAt = 0L;
-            }
+            holdCurrentUntilVideoEnds = false;
+            lastSwitchAt = 0L;
+            signalDisplay();
         });
     }
     @Override public void previous() {
         logCmd("previous() enfileirado");
         commandQueue.offer(() -> {
-            synchronized (ServidorGaleria.this) {
-                if (fileQueue.isEmpty()) return; 
-                currentFileIndex = (currentFileIndex - 2 + fileQueue.size()) % fileQueue.size();
+            synchronized (displayLock) {
+                String cursor = readLocked(() -> {
+                    if (fileQueue.isEmpty()) return null;
+                    // Recua até o exibível anterior ao atual (pulando os não exibíveis) e para logo antes
+                    // dele, para que a próxima troca o mostre
+                    String target = rotationCursor;
+                    for (int i = 0, n = fileQueue.size(); i < n; i++) {
+                        target = previousInRotation(target);
+                        if (isDisplayable(target)) break;
+                    }
+                    return previousInRotation(target);
+                });
+                if (cursor == null) return;
+                rotationCursor = cursor;
                 holdCurrentUntilVideoEnds = false;
                 lastSwitchAt = 0L;
+                signalDisplay();
             }
         });
     }
 
     @Override
-    public synchronized byte[] getNextDisplayFileByDate(String date) throws RemoteException {
+    public byte[] getNextDisplayFileByDate(String date) throws RemoteException {
     logCmd("getNextDisplayFileByDate(date=" + date + ")");
-        String prefix = normalizeDatePrefix(date); if (prefix == null) return null; if (fileQueue.isEmpty()) return null;
-        int start = dateLastIndex.getOrDefault(prefix, -1) + 1; if (start >= fileQueue.size()) start = 0; int tries = 0;
-        while (tries < fileQueue.size()) {
-            int idx = (start + tries) % fileQueue.size(); String rel = fileQueue.get(idx);
-            if (rel.startsWith(prefix) && isDisplayable(rel)) { byte[] bytes = tryReadValid(rel); if (bytes != null) { dateLastIndex.put(prefix, idx); lastServedRel = rel; holdCurrentUntilVideoEnds = isVideo(rel); return bytes; } else { removeFromIndexes(rel, idx); continue; } }
-            tries++;
+        FiltroData filtro = FiltroData.parse(date);
+        if (filtro == null) return null;
+        synchronized (displayLock) { return nextByDateFilter(filtro, this::tryReadValid); }
+    }
+
+    /**
+     * Próximo arquivo exibível dentro do filtro de data, em rotação circular.
+     * O filtro é um intervalo contíguo do catálogo ordenado, então cada troca custa
+     * O(log n) buscas em vez de varrer a fila inteira com startsWith.
+     */
+    private <T> T nextByDateFilter(FiltroData filtro, java.util.function.Function<String, T> loader) {
+        String last = dateLastServed.get(filtro.texto);
+        String cursor = last;
+        // Limita as tentativas ao tamanho do intervalo (arquivos não exibíveis são pulados)
+        int inRange = readLocked(() -> fileQueue.rank(filtro.fim) - fileQueue.rank(filtro.inicio));
+        for (int tries = 0; tries < inRange; tries++) {
+            final String after = cursor;
+            String rel = readLocked(() -> {
+                String r = after == null ? null : fileQueue.higher(after);
+                if (r == null || !filtro.contem(r)) r = fileQueue.ceiling(filtro.inicio); // volta ao início do intervalo
+                return r;
+            });
+            if (rel == null || !filtro.contem(rel)) return null;
+            cursor = rel;
+            if (!isDisplayable(rel)) continue;
+            T loaded = loader.apply(rel);
+            if (loaded != null) { dateLastServed.put(filtro.texto, rel); lastServedRel = rel; holdCurrentUntilVideoEnds = isVideo(rel); return loaded; }
+            if (readLocked(() -> fileQueue.contains(rel)) && !Files.exists(uploadDir.resolve(rel))) removeFromIndexes(rel);
         }
         return null;
     }
 
     @Override
-    public synchronized boolean verifyFileIntegrity(String fileName, String hash) throws RemoteException {
+    public boolean verifyFileIntegrity(String fileName, String hash) throws RemoteException {
     logCmd("verifyFileIntegrity(fileName=" + fileName + ")");
         String normalizedExpected = hash == null ? null : hash.replace(" ", "").toLowerCase(Locale.ROOT);
         if (normalizedExpected == null || normalizedExpected.isEmpty()) return false;
-        Path candidate = Paths.get(UPLOAD_DIR).resolve(fileName);
-        if (!Files.exists(candidate)) { File base = new File(UPLOAD_DIR); File found = findByFileName(base, new File(fileName).getName()); if (found != null) candidate = found.toPath(); }
+        Path candidate = uploadDir.resolve(fileName);
+        if (!Files.exists(candidate)) { File base = uploadDir.toFile(); File found = findByFileName(base, new File(fileName).getName()); if (found != null) candidate = found.toPath(); }
         if (!Files.exists(candidate)) return false;
-        try (FileInputStream fis = new FileInputStream(candidate.toFile())) { byte[] buf = fis.readAllBytes(); String md5 = HashUtil.md5Hex(buf).toLowerCase(Locale.ROOT); return md5.equals(normalizedExpected); }
+        try {
+            // Arquivo do catálogo já conferido e inalterado: usa o MD5 do cache em vez de reler tudo
+            String rel = SnapshotCatalogo.relativo(uploadDir, candidate);
+            String md5 = verifiedCache.md5Conferido(rel, Files.readAttributes(candidate, BasicFileAttributes.class));
+            if (md5 == null) md5 = HashUtil.md5Hex(candidate);
+            return md5.toLowerCase(Locale.ROOT).equals(normalizedExpected);
+        }
         catch (IOException e) { return false; }
     }
 
     @Override
-    public synchronized boolean deleteFile(String clientId, String relativePath) throws RemoteException {
+    public boolean deleteFile(String clientId, String relativePath) throws RemoteException {
     logCmd("deleteFile(clientId=" + clientId + ", path=" + relativePath + ")");
         if (clientId == null || clientId.isBlank() || relativePath == null || relativePath.isBlank()) return false;
-        String owner = fileOwner.get(relativePath); if (owner == null || !owner.equals(clientId)) return false;
-        int idx = fileQueue.indexOf(relativePath); if (idx < 0) return false;
-        Path absolute = Paths.get(UPLOAD_DIR).resolve(relativePath);
-        try { Files.deleteIfExists(absolute); } catch (IOException e) { return false; }
-        fileQueue.remove(idx); fileOwner.remove(relativePath); fileMd5.remove(relativePath);
-        if (playback.forcedRelativePath != null && playback.forcedRelativePath.equals(relativePath)) playback.forcedRelativePath = null;
-        if (lastServedRel != null && lastServedRel.equals(relativePath)) lastServedRel = null;
-        if (fileQueue.isEmpty()) currentFileIndex = -1; else if (idx <= currentFileIndex) currentFileIndex = Math.max(-1, currentFileIndex - 1);
-        if (!dateLastIndex.isEmpty()) { Map<String,Integer> copy = new HashMap<>(dateLastIndex); for (Map.Entry<String,Integer> e : copy.entrySet()) { Integer v = e.getValue(); if (v != null && v >= idx) { dateLastIndex.put(e.getKey(), Math.max(-1, v - 1)); } } }
-        saveOwnerIndex(); saveHashIndex();
+        catalogLock.writeLock().lock();
+        try {
+            String owner = fileOwner.get(relativePath); if (owner == null || !owner.equals(clientId)) return false;
+            if (!fileQueue.contains(relativePath)) return false;
+            Path absolute = uploadDir.resolve(relativePath);
+            try { Files.deleteIfExists(absolute); } catch (IOException e) { return false; }
+            unindexLocked(relativePath);
+            indexJournal.registrarRemocao(relativePath);
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+        announceRemoval(relativePath);
         return true;
     }
 
     // Sinalizações de controle vindas do cliente (web/desktop)
-    @Override public synchronized void setDisplayDateFilter(String date) {
+    @Override public void setDisplayDateFilter(String date) {
         logCmd("setDisplayDateFilter(" + date + ")");
-        this.globalDateFilterPrefix = normalizeDatePrefix(date);
+        this.globalDateFilter = FiltroData.parse(date);
+        updatePlayback(c -> {}); // o filtro faz parte do estado versionado de /control
     }
-    @Override public synchronized String getDisplayDateFilter() {
-        logCmd("getDisplayDateFilter() => " + this.globalDateFilterPrefix);
-        return this.globalDateFilterPrefix;
+    @Override public String getDisplayDateFilter() {
+        FiltroData filtro = globalDateFilter;
+        String texto = filtro == null ? null : filtro.texto;
+        logCmd("getDisplayDateFilter() => " + texto);
+        return texto;
     }
-    @Override public synchronized void setPaused(boolean paused) {
+    @Override public void setPaused(boolean paused) {
         logCmd("setPaused(" + paused + ")");
-        playback.paused = paused;
         if (!paused) { // ao despausar, permite troca imediata se necessário
             lastSwitchAt = 0L;
         }
+        updatePlayback(c -> c.paused = paused);
     }
-    @Override public synchronized void setPlaybackIntervalMillis(int ms) {
+    @Override public void setPlaybackIntervalMillis(int ms) {
         int old = playback.intervalMillis;
-        if (ms >= 1000 && ms <= 600_000) playback.intervalMillis = ms;
-        logCmd("setPlaybackIntervalMillis(" + ms + ") efetivo=" + playback.intervalMillis + " (antes=" + old + ")");
+        PlaybackConfig c = updatePlayback(p -> { if (ms >= 1000 && ms <= 600_000) p.intervalMillis = ms; });
+        logCmd("setPlaybackIntervalMillis(" + ms + ") efetivo=" + c.intervalMillis + " (antes=" + old + ")");
     }
-    @Override public synchronized void setForcedDisplayFile(String relativePath) {
+    @Override public void setForcedDisplayFile(String relativePath) {
         logCmd("setForcedDisplayFile(" + relativePath + ")");
-        playback.forcedRelativePath = (relativePath==null||relativePath.isBlank())?null:relativePath;
         // força troca imediata
         lastSwitchAt = 0L;
         holdCurrentUntilVideoEnds = false;
+        updatePlayback(c -> c.forcedRelativePath = (relativePath==null||relativePath.isBlank())?null:relativePath);
     }
-    @Override public synchronized PlaybackConfig getPlaybackConfig() {
+    // Leitura sem lock; devolve uma cópia, pois chamadores no mesmo processo (HTTP) não passam pela
+    // serialização do RMI e poderiam alterar o snapshot publicado
+    @Override public PlaybackConfig getPlaybackConfig() {
         // Silencia log de alta frequência para reduzir ruído
         return playback.copy();
     }
-    @Override public synchronized void setLoopVideo(boolean loop) {
+    @Override public PlaybackConfig getPlaybackConfigIfNewer(long version) {
+        PlaybackConfig c = playback;
+        return c.version > version ? c.copy() : null;
+    }
+    @Override public void setLoopVideo(boolean loop) {
         logCmd("setLoopVideo(" + loop + ")");
-        playback.loopVideo = loop;
+        updatePlayback(c -> c.loopVideo = loop);
     }
-    @Override public synchronized void setVideoPaused(boolean paused) {
+    @Override public void setVideoPaused(boolean paused) {
         logCmd("setVideoPaused(" + paused + ")");
-        playback.videoPaused = paused;
+        updatePlayback(c -> c.videoPaused = paused);
     }
-    @Override public synchronized void setMuted(boolean muted) {
+    @Override public void setMuted(boolean muted) {
         logCmd("setMuted(" + muted + ")");
-        playback.muted = muted;
+        updatePlayback(c -> c.muted = muted);
+    }
+
+    // Copy-on-write da configuração: escritores se serializam, leitores só leem o campo volatile
+    private PlaybackConfig updatePlayback(java.util.function.Consumer<PlaybackConfig> change) {
+        PlaybackConfig c;
+        synchronized (playbackLock) {
+            c = playback.copy();
+            change.accept(c);
+            c.version = playback.version + 1;
+            playback = c;
+        }
+        // Acorda o long-poll fora do playbackLock (ordem displayLock → playbackLock em clearForcedIf)
+        signalDisplay();
+        PlaybackConfig published = c;
+        notifyListener(l -> l.controleAlterado(published.copy()));
+        return c;
+    }
+
+    void setListener(OuvinteGaleria listener) { this.listener = listener; }
+
+    // Estado atual para quem acaba de se inscrever em /events (sem log de comando)
+    ItemExibicao currentDisplayItem() { synchronized (displayLock) { return currentItem; } }
+    String currentDateFilter() { FiltroData f = globalDateFilter; return f == null ? null : f.texto; }
+
+    private void notifyListener(java.util.function.Consumer<OuvinteGaleria> event) {
+        OuvinteGaleria l = listener;
+        if (l == null) return;
+        try { event.accept(l); } catch (RuntimeException e) { System.err.println("[WEB] Falha ao publicar evento: " + e); }
+    }
+
+    private static PlaybackConfig initialPlayback() {
+        PlaybackConfig c = new PlaybackConfig();
+        c.version = System.currentTimeMillis();
+        return c;
+    }
+
+    private void clearForcedIf(String rel) {
+        if (rel.equals(playback.forcedRelativePath)) {
+            updatePlayback(c -> { if (rel.equals(c.forcedRelativePath)) c.forcedRelativePath = null; });
+        }
+    }
+
+    private <T> T readLocked(java.util.function.Supplier<T> query) {
+        catalogLock.readLock().lock();
+        try { return query.get(); } finally { catalogLock.readLock().unlock(); }
+    }
+
+    /**
+     * Monta o catálogo na inicialização: usa o snapshot binário (uma leitura sequencial) quando existir;
+     * senão faz a varredura paralela da árvore e já grava um snapshot novo.
+     *
+     * @return true se veio do snapshot (ainda precisa ser conferido com o disco)
+     */
+    private boolean loadExistingFiles() {
+        long t0 = System.currentTimeMillis();
+        List<String> rels = catalogSnapshot.carregar();
+        boolean fromSnapshot = rels != null;
+        if (!fromSnapshot) rels = SnapshotCatalogo.varrer(uploadDir);
+        catalogLock.writeLock().lock();
+        try {
+            fileQueue.clear(); rels.forEach(fileQueue::add);
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+        System.out.println("[INDICE] Catálogo carregado " + (fromSnapshot ? "do snapshot" : "pela varredura") + ": "
+                + rels.size() + " arquivo(s) em " + (System.currentTimeMillis() - t0) + " ms");
+        if (!fromSnapshot && Files.isDirectory(uploadDir)) catalogSnapshot.gravar(rels);
+        return fromSnapshot;
     }
 
-    private void loadExistingFiles() {
-        File dir = new File(UPLOAD_DIR);
-        if (dir.exists() && dir.isDirectory()) {
-            List<String> collected = new ArrayList<>();
-            collectFilesRecursively(dir, dir, collected);
-            Collections.sort(collected);
-            fileQueue.clear(); fileQueue.addAll(collected);
+    /**
+     * Confere o catálogo carregado do snapshot com o disco (varredura paralela, fora de locks) e aplica
+     * só as diferenças. Cada diferença é confirmada com o disco sob o write lock, para não desfazer
+     * uploads/remoções feitos durante a varredura.
+     */
+    private void reconcileCatalog() {
+        long t0 = System.currentTimeMillis();
+        List<String> onDisk = SnapshotCatalogo.varrer(uploadDir);
+        java.util.Set<String> diskSet = new java.util.HashSet<>(onDisk);
+        List<String> missing = new ArrayList<>();
+        List<String> gone = new ArrayList<>();
+        catalogLock.readLock().lock();
+        try {
+            for (String rel : onDisk) if (!fileQueue.contains(rel)) missing.add(rel);
+            fileQueue.forEach(rel -> { if (!diskSet.contains(rel)) gone.add(rel); });
+        } finally {
+            catalogLock.readLock().unlock();
         }
+        int added = 0;
+        List<String> removed = new ArrayList<>();
+        catalogLock.writeLock().lock();
+        try {
+            for (String rel : missing) {
+                if (!Files.exists(uploadDir.resolve(rel)) || !fileQueue.add(rel)) continue;
+                quarantine.liberar(rel);
+                String owner = fileOwner.get(rel);
+                if (owner != null) filesByOwner.computeIfAbsent(owner, k -> new java.util.TreeSet<>()).add(rel);
+                added++;
+            }
+            for (String rel : gone) {
+                if (Files.exists(uploadDir.resolve(rel)) || !fileQueue.contains(rel)) continue;
+                unindexLocked(rel);
+                removed.add(rel);
+            }
+            indexJournal.registrarRemocoes(removed);
+            pruneIndexesToCatalog();
+            if (added > 0) catalogDirty = true;
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+        removed.forEach(this::announceRemoval);
+        System.out.println("[INDICE] Snapshot do catálogo conferido em " + (System.currentTimeMillis() - t0) + " ms (+"
+                + added + " / -" + removed.size() + ")");
+        saveCatalogSnapshotIfDirty();
     }
 
-    private static void collectFilesRecursively(File baseDir, File node, List<String> out) {
-        File[] list = node.listFiles(); if (list == null) return;
-        for (File f : list) {
-            if (f.isDirectory()) collectFilesRecursively(baseDir, f, out);
-            else { String name = f.getName(); if (name.startsWith(".")) continue; String rel = baseDir.toPath().relativize(f.toPath()).toString().replace('\\', '/'); String low = rel.toLowerCase(Locale.ROOT); if (low.endsWith(".jpg")||low.endsWith(".jpeg")||low.endsWith(".png")||low.endsWith(".mp4")) out.add(rel); }
+    /**
+     * Versão de exibição da imagem se o original já foi conferido e não mudou (custa só um stat);
+     * caso contrário lê/valida o original e agenda a geração das versões.
+     */
+    private byte[] readForScreen(String rel, int width, int height) {
+        if (!VersoesExibicao.suportado(rel)) return tryReadValid(rel);
+        String md5 = verifiedMd5(rel);
+        if (md5 != null) {
+            byte[] rendition = renditions.ler(md5, width, height);
+            if (rendition != null) return rendition;
+        }
+        byte[] original = tryReadValid(rel);
+        if (original != null) renditions.agendar(uploadDir.resolve(rel), readLocked(() -> fileMd5.get(rel)));
+        return original;
+    }
+
+    // MD5 do arquivo se ele já foi conferido e não mudou desde então; senão null
+    String verifiedMd5(String rel) {
+        String expected = readLocked(() -> fileMd5.get(rel));
+        if (expected == null) return null;
+        try {
+            return verifiedCache.confere(rel, Files.readAttributes(uploadDir.resolve(rel), BasicFileAttributes.class), expected) ? expected : null;
+        } catch (IOException e) {
+            return null;
         }
     }
 
+    /**
+     * MD5 conferido do arquivo: um stat se já verificado e inalterado; senão o hash é calculado em blocos
+     * (sem carregar o arquivo na memória) e registrado/comparado como no scrub.
+     *
+     * @return o MD5, ou null se ilegível ou divergente (nesse caso o arquivo vai para a quarentena)
+     */
+    private String verifyFile(String rel, String source) {
+        String md5 = verifiedMd5(rel);
+        if (md5 != null) return md5;
+        Path absolute = uploadDir.resolve(rel);
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(absolute, BasicFileAttributes.class);
+            String actual = HashUtil.md5Hex(absolute);
+            if (!checkHash(rel, attrs, actual, source)) return null;
+            String expected = readLocked(() -> fileMd5.get(rel));
+            return expected != null ? expected : actual;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void stampVerified(String rel, Path absolute, String md5) {
+        try { verifiedCache.registrar(rel, Files.readAttributes(absolute, BasicFileAttributes.class), md5); }
+        catch (IOException ignore) { /* sem carimbo: a próxima exibição confere o hash */ }
+    }
+
+    // Resultado do scrubber: confirma o carimbo, registra o primeiro hash ou isola o arquivo se divergir
+    private boolean onScrubbed(String rel, BasicFileAttributes attrs, String md5) {
+        return checkHash(rel, attrs, md5, "scrub");
+    }
+
+    private boolean checkHash(String rel, BasicFileAttributes attrs, String md5, String source) {
+        String expected = readLocked(() -> fileMd5.get(rel));
+        if (expected == null) {
+            catalogLock.writeLock().lock();
+            try {
+                if (!fileQueue.contains(rel) || fileMd5.containsKey(rel)) return true;
+                setMd5(rel, md5);
+                indexJournal.registrarHash(rel, md5);
+            } finally {
+                catalogLock.writeLock().unlock();
+            }
+            verifiedCache.registrar(rel, attrs, md5);
+        } else if (expected.equalsIgnoreCase(md5)) {
+            verifiedCache.registrar(rel, attrs, md5);
+        } else if (verifiedCache.mudou(rel, attrs)) {
+            // Tamanho/mtime mudaram desde a última conferência: o arquivo foi sobrescrito (ex.: rsync) e o
+            // observador ainda não o entregou (espera o arquivo ficar quieto). Bit rot não mexe nesses atributos.
+            adoptNewContent(rel, attrs, md5);
+        } else {
+            System.err.println("[INTEGRIDADE] Hash diverge em " + rel + " (" + source + "; esperado " + expected + ", atual " + md5 + ")");
+            quarantineFile(rel, expected, md5, source);
+            return false;
+        }
+        return true;
+    }
+
+    // Reindexa um caminho do catálogo com o conteúdo novo, como indexExternalFile faria
+    private void adoptNewContent(String rel, BasicFileAttributes attrs, String md5) {
+        catalogLock.writeLock().lock();
+        try {
+            if (!fileQueue.contains(rel)) return;
+            setMd5(rel, md5);
+            indexJournal.registrarHash(rel, md5);
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+        verifiedCache.registrar(rel, attrs, md5);
+        dropOrphanedDerivatives();
+        renditions.agendar(uploadDir.resolve(rel), md5);
+        System.out.println("[INDICE] Arquivo sobrescrito, hash atualizado: " + rel);
+    }
+
+    /**
+     * Tira o arquivo do catálogo e o move para {@code uploads/.quarantine/}, mantendo dono e hash nos índices.
+     */
+    private void quarantineFile(String rel, String expected, String actual, String source) {
+        verifiedCache.esquecer(rel);
+        catalogLock.writeLock().lock();
+        try {
+            if (!fileQueue.contains(rel) || !quarantine.isolar(rel, expected, actual, source)) return;
+            fileQueue.remove(rel);
+            String owner = fileOwner.get(rel);
+            if (owner != null) removeFromOwnerSet(owner, rel);
+            catalogDirty = true;
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+        if (rel.equals(lastServedRel)) { lastServedRel = null; signalDisplay(); }
+        clearForcedIf(rel);
+        notifyListener(l -> l.arquivoRemovido(rel));
+        System.err.println("[INTEGRIDADE] Arquivo em quarentena (" + source + "): " + rel);
+    }
+
+    // Relatório do scrubber/quarentena (rota HTTP /integrity)
+    VerificadorIntegridade.Progresso integrityProgress() { return scrubber.progresso(); }
+    List<Quarentena.Achado> quarantineFindings() { return quarantine.achados(); }
+    boolean startIntegrityScrub() { return scrubber.executarAgora(); }
+    boolean watchingUploads() { return uploadWatcher.ativo(); }
+
+    // Arquivo que surgiu ou mudou por fora do upload (observador): hash fora de locks, publicação com o write lock.
+    // Caminho já conhecido só é re-hasheado se tamanho/mtime mudaram desde a última conferência (ex.: rsync
+    // sobrescreveu a foto); sem isso a exibição/scrub veria o hash antigo divergir e isolaria uma atualização legítima.
+    private void indexExternalFile(String rel) {
+        Path absolute = uploadDir.resolve(rel);
+        BasicFileAttributes attrs;
+        try { attrs = Files.readAttributes(absolute, BasicFileAttributes.class); }
+        catch (IOException e) { System.err.println("[INDICE] Falha ao indexar " + rel + ": " + e.getMessage()); return; }
+        boolean known = readLocked(() -> fileQueue.contains(rel) && fileMd5.containsKey(rel));
+        if (known && verifiedCache.md5Conferido(rel, attrs) != null) return; // sem mudança (ex.: nosso próprio upload)
+        String md5;
+        try { md5 = HashUtil.md5Hex(absolute); }
+        catch (IOException e) { System.err.println("[INDICE] Falha ao indexar " + rel + ": " + e.getMessage()); return; }
+        boolean added, changed;
+        catalogLock.writeLock().lock();
+        try {
+            if (!Files.exists(absolute)) return;
+            added = fileQueue.add(rel);
+            if (added) {
+                quarantine.liberar(rel);
+                String owner = fileOwner.get(rel);
+                if (owner != null) filesByOwner.computeIfAbsent(owner, k -> new java.util.TreeSet<>()).add(rel);
+                catalogDirty = true;
+            }
+            changed = !md5.equals(fileMd5.get(rel));
+            if (changed) { setMd5(rel, md5); indexJournal.registrarHash(rel, md5); }
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+        verifiedCache.registrar(rel, attrs, md5);
+        if (changed) dropOrphanedDerivatives();
+        renditions.agendar(absolute, md5);
+        if (!added && changed) System.out.println("[INDICE] Arquivo externo atualizado (novo hash): " + rel);
+        if (added) {
+            System.out.println("[INDICE] Arquivo externo indexado: " + rel);
+            signalDisplay();
+            notifyListener(l -> l.arquivoAdicionado(rel));
+        }
+    }
+
+    // Arquivo ou pasta removida por fora (observador): tira do catálogo o que de fato sumiu do disco
+    private void forgetExternalPath(String rel) {
+        List<String> candidates = readLocked(() -> {
+            List<String> out = new ArrayList<>();
+            if (fileQueue.contains(rel)) out.add(rel);
+            String prefix = rel + "/";
+            for (String r = fileQueue.ceiling(prefix); r != null && r.startsWith(prefix); r = fileQueue.higher(r)) out.add(r);
+            return out;
+        });
+        for (String r : candidates) {
+            if (Files.exists(uploadDir.resolve(r))) continue;
+            removeFromIndexes(r);
+            System.out.println("[INDICE] Arquivo removido externamente: " + r);
+        }
+    }
+
+    // Cópia sob o read lock; a gravação acontece fora dele
+    private void saveCatalogSnapshotIfDirty() {
+        if (!catalogDirty) return;
+        List<String> rels;
+        catalogLock.readLock().lock();
+        try {
+            rels = fileQueue.toList();
+            catalogDirty = false;
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+        catalogSnapshot.gravar(rels);
+    }
+
     private static File findByFileName(File base, String name) {
         File[] list = base.listFiles(); if (list == null) return null; for (File f : list) { if (f.isDirectory()) { File res = findByFileName(f, name); if (res != null) return res; } else if (f.getName().equals(name)) { return f; } } return null;
     }
@@ -381,43 +1482,36 @@ public class ServidorGaleria extends UnicastRemoteObject implements GaleriaRemot
      * @param relative Caminho relativo do arquivo dentro da pasta uploads
      * @return bytes do arquivo se válido, null se corrompido ou inexistente
      */
-    private synchronized byte[] tryReadValid(String relative) {
+    private byte[] tryReadValid(String relative) {
         // Validação básica: caminho deve estar preenchido
         if (relative == null || relative.isBlank()) return null;
         
         // Constrói caminho absoluto combinando pasta uploads com caminho relativo
-        Path absolute = Paths.get(UPLOAD_DIR).resolve(relative);
+        Path absolute = uploadDir.resolve(relative);
         
         // Se arquivo não existe fisicamente, retorna null
         if (!Files.exists(absolute)) { return null; }
         
         try {
+            // Atributos lidos antes do conteúdo: se o arquivo mudar no meio, o carimbo não confere na próxima vez
+            BasicFileAttributes attrs = Files.readAttributes(absolute, BasicFileAttributes.class);
+
             // Lê todos os bytes do arquivo para memória
             byte[] bytes = Files.readAllBytes(absolute);
             
             // Busca o hash MD5 esperado (calculado quando arquivo foi enviado)
-            String expected = fileMd5.get(relative);
-            
-            // Se não temos hash esperado, calcula e registra pela primeira vez
-            if (expected == null || expected.isBlank()) {
-                String md5 = HashUtil.md5Hex(bytes);
-                fileMd5.put(relative, md5);
-                saveHashIndex(); // Persiste o hash no arquivo .hashes.tsv
-                return bytes;
-            }
+            String expected = readLocked(() -> fileMd5.get(relative));
+
+            // Já conferido e sem alteração de tamanho/mtime desde então: exibe sem recalcular o hash
+            if (bytes.length == attrs.size() && verifiedCache.confere(relative, attrs, expected)) return bytes;
             
-            // VALIDAÇÃO DE INTEGRIDADE: calcula hash atual e compara com esperado
+            // VALIDAÇÃO DE INTEGRIDADE: calcula hash atual e compara com esperado (checkHash registra e persiste
+            // o primeiro hash, se o arquivo ainda estiver no catálogo); divergente sem mudança de tamanho/mtime
+            // (corrompido) NÃO EXIBE e vai para a quarentena, sobrescrito é reindexado
             String currentMd5 = HashUtil.md5Hex(bytes);
-            if (currentMd5.equalsIgnoreCase(expected)) {
-                // Hash confere: arquivo está íntegro, pode exibir
-                return bytes;
-            } else {
-                // Hash diverge: arquivo foi alterado/corrompido, NÃO EXIBE
-                System.err.println("[INTEGRIDADE] Arquivo rejeitado - hash diverge em " + relative);
-                System.err.println("  Esperado: " + expected);
-                System.err.println("  Atual: " + currentMd5);
-                return null;
-            }
+            // Arquivo mudando durante a leitura: não registra nada (a próxima leitura confere de novo)
+            if (bytes.length != attrs.size()) return expected == null || currentMd5.equalsIgnoreCase(expected) ? bytes : null;
+            return checkHash(relative, attrs, currentMd5, "exibicao") ? bytes : null;
         } catch (IOException e) { 
             // Erro ao ler arquivo
             System.err.println("[ERRO] Falha ao ler arquivo: " + e.getMessage());
@@ -510,32 +1604,145 @@ public class ServidorGaleria extends UnicastRemoteObject implements GaleriaRemot
 
     // Utilidades HTTP movidas para ServidorHttpUploader; HTML do uploader passou a ser recurso estático em resources/web/uploader.html
 
-    private synchronized void loadOwnerIndex() { try { if (!Files.exists(OWNER_INDEX)) return; List<String> lines = Files.readAllLines(OWNER_INDEX, StandardCharsets.UTF_8); for (String line : lines) { if (line.isBlank() || line.startsWith("#")) continue; String[] parts = line.split("\t"); if (parts.length < 2) continue; String rel = parts[0]; String owner = parts[1]; Path p = Paths.get(UPLOAD_DIR).resolve(rel); if (Files.exists(p)) { fileOwner.put(rel, owner); } } } catch (IOException e) { System.err.println("Falha ao ler índice de donos: "+e.getMessage()); } }
-    private synchronized void saveOwnerIndex() { try { Files.createDirectories(Paths.get(UPLOAD_DIR)); List<String> lines = fileOwner.entrySet().stream().sorted(Map.Entry.comparingByKey()).map(e -> e.getKey()+"\t"+e.getValue()).collect(java.util.stream.Collectors.toList()); Files.write(OWNER_INDEX, lines, StandardCharsets.UTF_8); } catch (IOException e) { System.err.println("Falha ao salvar índice de donos: "+e.getMessage()); } }
-    private synchronized void loadHashIndex() { try { if (!Files.exists(HASH_INDEX)) return; List<String> lines = Files.readAllLines(HASH_INDEX, StandardCharsets.UTF_8); for (String line : lines) { if (line.isBlank() || line.startsWith("#")) continue; String[] parts = line.split("\t"); if (parts.length < 2) continue; String rel = parts[0]; String md5 = parts[1]; Path p = Paths.get(UPLOAD_DIR).resolve(rel); if (Files.exists(p)) { fileMd5.put(rel, md5); } } } catch (IOException e) { System.err.println("Falha ao ler índice de hashes: "+e.getMessage()); } }
-    private synchronized void saveHashIndex() { try { Files.createDirectories(Paths.get(UPLOAD_DIR)); List<String> lines = fileMd5.entrySet().stream().sorted(Map.Entry.comparingByKey()).map(e -> e.getKey()+"\t"+e.getValue()).collect(java.util.stream.Collectors.toList()); Files.write(HASH_INDEX, lines, StandardCharsets.UTF_8); } catch (IOException e) { System.err.println("Falha ao salvar índice de hashes: "+e.getMessage()); } }
+    // Índices de donos/hashes: snapshot TSV + replay do journal append-only (ver JournalIndices)
+    /**
+     * Carrega donos/hashes. Entradas de arquivos que não existem mais são descartadas por pertinência
+     * ao catálogo (sem um Files.exists por linha); se o catálogo veio do snapshot, o descarte espera
+     * a conferência com o disco em {@link #reconcileCatalog()}.
+     */
+    private void loadIndexes(boolean catalogAuthoritative) {
+        catalogLock.writeLock().lock();
+        try {
+            indexJournal.carregar(fileOwner, fileMd5);
+            filesByOwner.clear();
+            // Mesmo critério da listagem antiga: só entra o que está no catálogo
+            fileOwner.forEach((rel, owner) -> { if (fileQueue.contains(rel)) filesByOwner.computeIfAbsent(owner, k -> new java.util.TreeSet<>()).add(rel); });
+            if (catalogAuthoritative) pruneIndexesToCatalog();
+            rebuildMd5Index();
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+    }
 
-    private synchronized void removeFromIndexes(String rel, int idxHint) {
-        if (rel == null) return; int idx = idxHint; if (idx < 0 || idx >= fileQueue.size() || !rel.equals(fileQueue.get(idx))) { idx = fileQueue.indexOf(rel); }
-        if (idx >= 0) { fileQueue.remove(idx); }
-        fileOwner.remove(rel); fileMd5.remove(rel);
-        if (fileQueue.isEmpty()) currentFileIndex = -1; else if (idx >= 0 && idx <= currentFileIndex) currentFileIndex = Math.max(-1, currentFileIndex - 1);
-        if (!dateLastIndex.isEmpty()) { Map<String,Integer> copy = new HashMap<>(dateLastIndex); for (Map.Entry<String,Integer> e : copy.entrySet()) { Integer v = e.getValue(); if (v != null && idx >= 0 && v >= idx) { dateLastIndex.put(e.getKey(), Math.max(-1, v - 1)); } } }
-        if (rel.equals(lastServedRel)) lastServedRel = null;
-        if (playback.forcedRelativePath != null && playback.forcedRelativePath.equals(rel)) playback.forcedRelativePath = null;
-        saveOwnerIndex(); saveHashIndex();
+    // Requer o write lock; arquivos em quarentena mantêm dono/hash
+    private void pruneIndexesToCatalog() {
+        fileOwner.keySet().removeIf(rel -> !fileQueue.contains(rel) && !quarantine.contem(rel));
+        fileMd5.keySet().removeIf(rel -> !fileQueue.contains(rel) && !quarantine.contem(rel));
+        rebuildMd5Index();
     }
 
-    
+    // setMd5/clearMd5/rebuildMd5Index requerem o write lock
+    private void setMd5(String rel, String md5) {
+        String previous = fileMd5.put(rel, md5);
+        if (previous != null) removeFromMd5Set(previous, rel);
+        filesByMd5.computeIfAbsent(md5.toUpperCase(Locale.ROOT), k -> new java.util.HashSet<>()).add(rel);
+    }
 
-    static String normalizeDatePrefix(String date) {
-        if (date == null) return null; String d = date.trim(); if (d.isEmpty()) return null; String y, m, dd;
+    private void clearMd5(String rel) {
+        String md5 = fileMd5.remove(rel);
+        if (md5 != null) removeFromMd5Set(md5, rel);
+    }
+
+    private void removeFromMd5Set(String md5, String rel) {
+        String key = md5.toUpperCase(Locale.ROOT);
+        java.util.Set<String> rels = filesByMd5.get(key);
+        if (rels == null) return;
+        rels.remove(rel);
+        if (rels.isEmpty()) { filesByMd5.remove(key); orphanedMd5.add(key); }
+    }
+
+    // Conteúdos que deixaram de estar em qualquer caminho (removido ou sobrescrito) perdem as versões de
+    // exibição e a miniatura. Chamado sem locks; o read lock segura publicações do mesmo conteúdo durante a conferência.
+    private void dropOrphanedDerivatives() {
+        for (String md5 : List.copyOf(orphanedMd5)) {
+            orphanedMd5.remove(md5);
+            catalogLock.readLock().lock();
+            try {
+                if (filesByMd5.containsKey(md5)) continue; // o mesmo conteúdo voltou ao catálogo
+                renditions.remover(md5);
+                thumbnails.remover(md5);
+            } finally {
+                catalogLock.readLock().unlock();
+            }
+        }
+    }
+
+    private void rebuildMd5Index() {
+        filesByMd5.clear();
+        fileMd5.forEach((rel, md5) -> filesByMd5.computeIfAbsent(md5.toUpperCase(Locale.ROOT), k -> new java.util.HashSet<>()).add(rel));
+    }
+
+    // setOwner/clearOwner requerem o write lock
+    private void setOwner(String rel, String owner) {
+        String previous = fileOwner.put(rel, owner);
+        if (previous != null && !previous.equals(owner)) removeFromOwnerSet(previous, rel);
+        filesByOwner.computeIfAbsent(owner, k -> new java.util.TreeSet<>()).add(rel);
+    }
+
+    private void clearOwner(String rel) {
+        String owner = fileOwner.remove(rel);
+        if (owner != null) removeFromOwnerSet(owner, rel);
+    }
+
+    private void removeFromOwnerSet(String owner, String rel) {
+        java.util.TreeSet<String> own = filesByOwner.get(owner);
+        if (own == null) return;
+        own.remove(rel);
+        if (own.isEmpty()) filesByOwner.remove(owner);
+    }
+
+    private void maybeCompactIndexes() {
+        int pending = indexJournal.entradas();
+        if (pending >= COMPACT_MAX_ENTRIES || (pending > 0 && System.currentTimeMillis() - lastCompactionAt >= COMPACT_INTERVAL_MS)) {
+            compactIndexes();
+        }
+    }
+
+    // Copia os mapas e rotaciona o journal sob o read lock (o journal só é escrito com o write lock);
+    // a escrita dos snapshots acontece fora dele
+    private void compactIndexes() {
+        synchronized (compactLock) {
+            Map<String, String> owners;
+            Map<String, String> hashes;
+            catalogLock.readLock().lock();
+            try {
+                if (indexJournal.entradas() == 0) return;
+                owners = new HashMap<>(fileOwner);
+                hashes = new HashMap<>(fileMd5);
+                indexJournal.rotacionar();
+                lastCompactionAt = System.currentTimeMillis();
+            } finally {
+                catalogLock.readLock().unlock();
+            }
+            indexJournal.gravarSnapshot(owners, hashes);
+        }
+    }
+
+    private void removeFromIndexes(String rel) {
+        if (rel == null) return;
+        catalogLock.writeLock().lock();
         try {
-            if (d.matches("\\d{8}")) { y = d.substring(0,4); m = d.substring(4,6); dd = d.substring(6,8); }
-            else if (d.matches("\\d{4}-\\d{2}-\\d{2}")) { y = d.substring(0,4); m = d.substring(5,7); dd = d.substring(8,10); }
-            else if (d.matches("\\d{4}/\\d{2}/\\d{2}")) { y = d.substring(0,4); m = d.substring(5,7); dd = d.substring(8,10); }
-            else { return null; }
-            int mi = Integer.parseInt(m); int di = Integer.parseInt(dd); if (mi < 1 || mi > 12 || di < 1 || di > 31) return null; return String.format(Locale.ROOT, "%s/%s/%s/", y, m, dd);
-        } catch (NumberFormatException e) { return null; }
+            unindexLocked(rel);
+            indexJournal.registrarRemocao(rel);
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+        announceRemoval(rel);
+    }
+
+    // Tira o caminho do catálogo e dos índices de dono/hash (o chamador grava o "D" no journal); requer o write lock
+    private void unindexLocked(String rel) {
+        fileQueue.remove(rel);
+        clearOwner(rel); clearMd5(rel);
+        verifiedCache.esquecer(rel);
+        catalogDirty = true;
+    }
+
+    // Depois de soltar o lock: display, arquivo forçado e /events deixam de apontar para o caminho removido
+    private void announceRemoval(String rel) {
+        dropOrphanedDerivatives();
+        if (rel.equals(lastServedRel)) { lastServedRel = null; signalDisplay(); }
+        clearForcedIf(rel);
+        notifyListener(l -> l.arquivoRemovido(rel));
     }
 }
@@ -1,6 +1,5 @@
 package br.com.photoframe.servidor;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.InetSocketAddress;
@@ -14,6 +13,8 @@ import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpServer;
 
+import br.com.photoframe.compartilhado.ItemExibicao;
+import br.com.photoframe.compartilhado.PaginaArquivos;
 import br.com.photoframe.compartilhado.PlaybackConfig;
 
 /**
@@ -23,21 +24,39 @@ import br.com.photoframe.compartilhado.PlaybackConfig;
 class ServidorHttpUploader {
     private final ServidorGaleria core;
     private HttpServer http;
+    private ExecutorService pool;
     private final java.util.concurrent.ConcurrentHashMap<String, Long> lastHit = new java.util.concurrent.ConcurrentHashMap<>();
     private static final long RATE_MS = 200L; // intervalo mínimo entre cliques por IP
+    private static final int DEFAULT_PAGE = 200; // /allfiles e /myfiles sem limit
+    // Canal /events: uma thread difunde para todas as conexões SSE
+    private final DifusorEventos events = new DifusorEventos();
+    // Threads do pool HTTP (o controle de admissão deixa algumas livres para o resto das rotas)
+    static final int HTTP_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors()*2);
+    // Limites de uploads em andamento (bytes, total e por cliente); o orçamento de bytes é o mesmo das sessões RMI
+    private final ControleAdmissao admission;
 
-    ServidorHttpUploader(ServidorGaleria core) { this.core = core; }
+    ServidorHttpUploader(ServidorGaleria core) { this.core = core; this.admission = core.admission(); }
 
     void iniciar(int port) throws IOException {
         http = HttpServer.create(new InetSocketAddress(port), 0);
         // Rotas principais
         http.createContext("/uploader", this::uploaderPage);
         http.createContext("/upload", this::upload);
+        http.createContext("/upload-batch", this::uploadLote);
         http.createContext("/myfiles", this::meusArquivos);
         http.createContext("/allfiles", this::todosArquivos);
         http.createContext("/delete", this::excluirArquivo);
         http.createContext("/file", this::obterArquivo);
+        http.createContext("/thumb", this::miniatura);
+        http.createContext("/media", this::midia);
         http.createContext("/control", this::controles);
+        http.createContext("/events", this::eventos);
+        core.setListener(new OuvinteGaleria() {
+            @Override public void controleAlterado(PlaybackConfig c) { events.publicar("control", controlJson(c, core.currentDateFilter())); }
+            @Override public void exibicaoAlterada(ItemExibicao item) { events.publicar("display", displayJson(item)); }
+            @Override public void arquivoAdicionado(String rel) { events.publicar("upload", "{\"path\":" + jsonStr(rel) + "}"); }
+            @Override public void arquivoRemovido(String rel) { events.publicar("delete", "{\"path\":" + jsonStr(rel) + "}"); }
+        });
         http.createContext("/next", ex -> {
             if (!"POST".equalsIgnoreCase(ex.getRequestMethod())) { send(ex,405,"Método não permitido","text/plain"); return; }
             if (isRateLimited(ex)) { send(ex, 429, "{\"status\":\"RATE_LIMIT\"}", "application/json"); return; }
@@ -52,12 +71,21 @@ class ServidorHttpUploader {
             core.previous();
             send(ex,200,"{\"status\":\"OK\"}","application/json");
         });
+        http.createContext("/integrity", this::integridade);
         http.createContext("/health", ex -> send(ex,200,"OK","text/plain"));
-        ExecutorService pool = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()*2));
+        pool = Executors.newFixedThreadPool(HTTP_THREADS);
         http.setExecutor(pool);
         http.start();
     }
 
+    /** Porta em que o servidor escuta (útil quando iniciado na porta 0). */
+    int porta() { return http.getAddress().getPort(); }
+
+    void parar() {
+        http.stop(0);
+        pool.shutdownNow();
+    }
+
     private void uploaderPage(HttpExchange ex) throws IOException {
         if (!"GET".equalsIgnoreCase(ex.getRequestMethod())) { send(ex, 405, "Método não permitido", "text/plain"); return; }
         String ip = ex.getRemoteAddress().getAddress().getHostAddress();
@@ -78,11 +106,74 @@ class ServidorHttpUploader {
         String clientId = getQueryParam(query, "clientId");
         if (clientId == null || clientId.isBlank()) clientId = "web-" + ex.getRemoteAddress().getAddress().getHostAddress();
         if (filename == null || filename.isBlank()) filename = "upload.bin";
-        byte[] body = readBodyLimited(ex.getRequestBody(), ServidorGaleria.MAX_BYTES + 1);
-        if (body.length == 0 || body.length > ServidorGaleria.MAX_BYTES) { send(ex, 400, "Arquivo vazio ou maior que o limite.", "text/plain"); return; }
-    boolean ok; try { ok = core.uploadFile(filename, body, clientId); } catch (Exception re) { ok = false; }
+        long len = declaredLength(ex);
+        if (len == 0 || len > ServidorGaleria.MAX_BYTES) { refuse(ex, 400, "Arquivo vazio ou maior que o limite.", "text/plain"); return; }
+        // Sem Content-Length (chunked) reserva o máximo que uploadStream aceita
+        try (ControleAdmissao.Vaga vaga = admit(ex, len < 0 ? ServidorGaleria.MAX_BYTES : len)) {
+            if (vaga == null) return;
+    // Corpo vai direto para disco (streaming), sem buffer do arquivo inteiro em memória
+    boolean ok; try (InputStream body = ex.getRequestBody()) { ok = core.uploadStream(filename, body, clientId); } catch (IOException ioe) { System.err.println("[WEB] Falha no upload: " + ioe.getMessage()); ok = false; }
     System.out.println("[WEB] /upload de " + clientId + " arquivo=" + filename + " status=" + ok);
     send(ex, ok?200:400, ok?"{\"status\":\"OK\"}":"{\"status\":\"ERRO\"}", "application/json");
+        }
+    }
+
+    // Content-Length declarado; -1 se ausente/inválido (corpo chunked)
+    private static long declaredLength(HttpExchange ex) {
+        String declared = ex.getRequestHeaders().getFirst("Content-Length");
+        if (declared == null) return -1;
+        try { return Long.parseLong(declared.trim()); } catch (NumberFormatException e) { return -1; }
+    }
+
+    // Admissão antes de ler o corpo; null = já respondeu (413 se nunca caberia, 503 + Retry-After se está cheio)
+    private ControleAdmissao.Vaga admit(HttpExchange ex, long bytes) throws IOException {
+        String ip = ex.getRemoteAddress().getAddress().getHostAddress();
+        if (bytes > admission.limiteBytes()) { refuse(ex, 413, "{\"status\":\"GRANDE_DEMAIS\"}", "application/json"); return null; }
+        ControleAdmissao.Vaga vaga = admission.admitir(ip, bytes);
+        if (vaga != null) return vaga;
+        System.out.println("[WEB] Upload de " + ip + " recusado (503): " + admission.estado());
+        ex.getResponseHeaders().set("Retry-After", String.valueOf(ControleAdmissao.RETRY_AFTER_S));
+        refuse(ex, 503, "{\"status\":\"OCUPADO\"}", "application/json");
+        return null;
+    }
+
+    // Recusa sem ler o corpo: com "Connection: close" o servidor descarta no máximo 64 KB do que já chegou
+    // (sun.net.httpserver.drainAmount) e fecha a conexão, em vez de deixá-la aberta com o corpo pendente
+    private static void refuse(HttpExchange ex, int status, String content, String contentType) throws IOException {
+        ex.getResponseHeaders().set("Connection", "close");
+        send(ex, status, content, contentType);
+        ex.close();
+    }
+
+    // Vários arquivos num corpo só (quadros "<tamanho>\t<nome>\n" + bytes, ver LoteUpload), publicados juntos
+    private void uploadLote(HttpExchange ex) throws IOException {
+        if (!"POST".equalsIgnoreCase(ex.getRequestMethod())) { send(ex, 405, "Método não permitido", "text/plain"); return; }
+        String clientId = getQueryParam(ex.getRequestURI().getQuery(), "clientId");
+        if (clientId == null || clientId.isBlank()) clientId = "web-" + ex.getRemoteAddress().getAddress().getHostAddress();
+        // O lote pode ter até 500 arquivos: sem Content-Length não há como reservar o orçamento
+        long len = declaredLength(ex);
+        if (len < 0) { refuse(ex, 411, "{\"status\":\"ERRO\"}", "application/json"); return; }
+        ControleAdmissao.Vaga vaga = admit(ex, len);
+        if (vaga == null) return;
+        LoteUpload lote;
+        try (vaga; InputStream body = ex.getRequestBody()) { lote = core.uploadBatch(body, clientId); }
+        catch (IOException ioe) {
+            System.err.println("[WEB] Lote descartado: " + ioe.getMessage());
+            send(ex, 400, "{\"status\":\"ERRO\"}", "application/json");
+            return;
+        }
+        int ok = 0;
+        for (LoteUpload.Arquivo a : lote.arquivos) if (a.relativePath != null) ok++;
+        System.out.println("[WEB] /upload-batch de " + clientId + " arquivos=" + ok + "/" + lote.arquivos.size());
+        // {"status":"OK","files":[{"name":...,"path":...|null}]}, na ordem dos quadros
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        ex.getResponseHeaders().set("Cache-Control", "no-store");
+        ex.sendResponseHeaders(200, 0);
+        try (EscritorJson json = new EscritorJson(ex.getResponseBody())) {
+            json.abrirObjeto().nome("status").valor(ok == lote.arquivos.size() ? "OK" : "PARCIAL").nome("files").abrirArray();
+            for (LoteUpload.Arquivo a : lote.arquivos) json.abrirObjeto().nome("name").valor(a.nome).nome("path").valor(a.relativePath).fecharObjeto();
+            json.fecharArray().fecharObjeto();
+        }
     }
 
     private void meusArquivos(HttpExchange ex) throws IOException {
@@ -91,16 +182,34 @@ class ServidorHttpUploader {
         if (cid==null||cid.isBlank()) cid = getCookie(ex, "pf-client-id");
         if (cid==null||cid.isBlank()) cid = "web-" + ex.getRemoteAddress().getAddress().getHostAddress();
     System.out.println("[WEB] /myfiles de " + cid);
-    List<String> list = core.getFileListByClient(cid);
-        String json = toJsonArray(list);
-        send(ex, 200, json, "application/json; charset=UTF-8");
+        String q = ex.getRequestURI().getQuery();
+        sendPage(ex, core.listFilesByClient(cid, getQueryParam(q, "cursor"), pageLimit(q), getQueryParam(q, "prefix"), getQueryParam(q, "type")));
     }
 
     private void todosArquivos(HttpExchange ex) throws IOException {
         if (!"GET".equalsIgnoreCase(ex.getRequestMethod())) { send(ex, 405, "Método não permitido", "text/plain"); return; }
     System.out.println("[WEB] /allfiles");
-    String json = toJsonArray(core.getFileList());
-        send(ex, 200, json, "application/json; charset=UTF-8");
+        String q = ex.getRequestURI().getQuery();
+        sendPage(ex, core.listFiles(getQueryParam(q, "cursor"), pageLimit(q), getQueryParam(q, "prefix"), getQueryParam(q, "type")));
+    }
+
+    // limit ausente/inválido usa o padrão; o núcleo limita a ServidorGaleria.MAX_PAGE
+    private static int pageLimit(String query) {
+        String v = getQueryParam(query, "limit");
+        try { return v == null ? DEFAULT_PAGE : Integer.parseInt(v.trim()); } catch (NumberFormatException e) { return DEFAULT_PAGE; }
+    }
+
+    // {"items":[...],"next":cursor|null}, gravado em streaming (resposta chunked)
+    private static void sendPage(HttpExchange ex, PaginaArquivos page) throws IOException {
+        Headers h = ex.getResponseHeaders();
+        h.set("Content-Type", "application/json; charset=UTF-8");
+        h.set("Cache-Control", "no-store");
+        ex.sendResponseHeaders(200, 0);
+        try (EscritorJson json = new EscritorJson(ex.getResponseBody())) {
+            json.abrirObjeto().nome("items").abrirArray();
+            for (String rel : page.items) json.valor(rel);
+            json.fecharArray().nome("next").valor(page.nextCursor).fecharObjeto();
+        }
     }
 
     private void excluirArquivo(HttpExchange ex) throws IOException {
@@ -116,33 +225,173 @@ class ServidorHttpUploader {
     }
 
     private void obterArquivo(HttpExchange ex) throws IOException {
-        if (!"GET".equalsIgnoreCase(ex.getRequestMethod())) { send(ex, 405, "Método não permitido", "text/plain"); return; }
+        if (!"GET".equalsIgnoreCase(ex.getRequestMethod()) && !"HEAD".equalsIgnoreCase(ex.getRequestMethod())) { send(ex, 405, "Método não permitido", "text/plain"); return; }
         String cid = getQueryParam(ex.getRequestURI().getQuery(), "clientId");
         if (cid==null||cid.isBlank()) cid = getCookie(ex, "pf-client-id");
         if (cid==null||cid.isBlank()) cid = "web-" + ex.getRemoteAddress().getAddress().getHostAddress();
         String rel = getQueryParam(ex.getRequestURI().getQuery(), "path");
         if (rel==null||rel.isBlank()) { send(ex, 400, "Parâmetros inválidos", "text/plain"); return; }
-        byte[] bytes = core.readFileIfOwner(cid, rel);
-        if (bytes == null) { send(ex, 404, "Não encontrado", "text/plain"); return; }
+        java.nio.file.Path file = core.fileIfOwner(cid, rel);
+        String md5 = file == null ? null : core.verifiedMd5(rel);
+        if (md5 == null) { send(ex, 404, "Não encontrado", "text/plain"); return; }
         String low = rel.toLowerCase(Locale.ROOT);
     String mime = low.endsWith(".png")?"image/png":
               (low.endsWith(".jpg")||low.endsWith(".jpeg")||low.endsWith(".heic")||low.endsWith(".heif"))?"image/jpeg":
               low.endsWith(".mp4")?"video/mp4":"application/octet-stream";
+        // ETag = MD5 do conteúdo; revalida a cada visita (o dono pode excluir), mas sem corpo quando não mudou
+        sendFileRange(ex, file, mime, "\"" + md5.toLowerCase(Locale.ROOT) + "\"", "private, no-cache");
+    }
+
+    // Miniatura JPEG do arquivo do cliente; conteúdo endereçado por MD5, então pode ficar em cache por muito tempo
+    private void miniatura(HttpExchange ex) throws IOException {
+        if (!"GET".equalsIgnoreCase(ex.getRequestMethod())) { send(ex, 405, "Método não permitido", "text/plain"); return; }
+        String cid = getQueryParam(ex.getRequestURI().getQuery(), "clientId");
+        if (cid==null||cid.isBlank()) cid = getCookie(ex, "pf-client-id");
+        if (cid==null||cid.isBlank()) cid = "web-" + ex.getRemoteAddress().getAddress().getHostAddress();
+        String rel = getQueryParam(ex.getRequestURI().getQuery(), "path");
+        if (rel==null||rel.isBlank()) { send(ex, 400, "Parâmetros inválidos", "text/plain"); return; }
+        java.nio.file.Path thumb = core.thumbnailIfOwner(cid, rel);
+        if (thumb == null) { send(ex, 404, "Não encontrado", "text/plain"); return; }
+        String fn = thumb.getFileName().toString();
+        String etag = "\"" + fn.substring(0, fn.lastIndexOf('.')) + "-t\"";
         Headers h = ex.getResponseHeaders();
-        h.set("Content-Type", mime);
-        h.set("Cache-Control", "no-store");
+        h.set("ETag", etag);
+        h.set("Cache-Control", "private, max-age=31536000, immutable");
+        if (etag.equals(ex.getRequestHeaders().getFirst("If-None-Match"))) { ex.sendResponseHeaders(304, -1); ex.close(); return; }
+        byte[] bytes = java.nio.file.Files.readAllBytes(thumb);
+        h.set("Content-Type", "image/jpeg");
         ex.sendResponseHeaders(200, bytes.length);
         try (var os = ex.getResponseBody()) { os.write(bytes); }
     }
 
+    /**
+     * Server-Sent Events: estado inicial (controles + item em exibição) e depois eventos {@code control},
+     * {@code display}, {@code upload} e {@code delete}, no lugar de polling de /control e /allfiles.
+     * A conexão fica com o {@link DifusorEventos}; a thread do handler é liberada em seguida.
+     */
+    private void eventos(HttpExchange ex) throws IOException {
+        if (!"GET".equalsIgnoreCase(ex.getRequestMethod())) { send(ex, 405, "Método não permitido", "text/plain"); return; }
+        if (!events.reservar()) {
+            ex.getResponseHeaders().set("Retry-After", "30");
+            send(ex, 503, "Muitas conexões de eventos", "text/plain");
+            return;
+        }
+        Headers h = ex.getResponseHeaders();
+        h.set("Content-Type", "text/event-stream; charset=UTF-8");
+        h.set("Cache-Control", "no-cache");
+        StringBuilder initial = new StringBuilder(DifusorEventos.formatar("control", controlJson(core.getPlaybackConfig(), core.currentDateFilter())));
+        ItemExibicao item = core.currentDisplayItem();
+        if (item != null) initial.append(DifusorEventos.formatar("display", displayJson(item)));
+        // Se o envio dos cabeçalhos falhar, a primeira escrita falha e o difusor libera a vaga
+        try { ex.sendResponseHeaders(200, 0); } finally { events.inscrever(ex, initial.toString()); }
+    }
+
+    static String controlJson(PlaybackConfig c, String curDate) {
+        return "{\"paused\":"+c.paused+",\"interval\":"+c.intervalMillis+",\"date\":"+jsonStr(curDate==null?"":curDate)+",\"forced\":"+jsonStr(c.forcedRelativePath==null?"":c.forcedRelativePath)+",\"loop\":"+c.loopVideo+",\"videoPaused\":"+c.videoPaused+",\"muted\":"+c.muted+",\"version\":"+c.version+"}";
+    }
+
+    static String displayJson(ItemExibicao item) {
+        return "{\"path\":" + jsonStr(item.relativePath) + ",\"mediaType\":" + jsonStr(item.mediaType)
+                + ",\"version\":" + item.displayVersion + "}";
+    }
+
+    /**
+     * Conteúdo de um descritor do display por hash ({@code /media?hash=<md5>&h=<altura>}), com suporte a Range:
+     * o viewer entrega a URL ao JavaFX, que começa a tocar o vídeo com os primeiros blocos.
+     */
+    private void midia(HttpExchange ex) throws IOException {
+        String m = ex.getRequestMethod();
+        if (!"GET".equalsIgnoreCase(m) && !"HEAD".equalsIgnoreCase(m)) { send(ex, 405, "Método não permitido", "text/plain"); return; }
+        String q = ex.getRequestURI().getQuery();
+        String hash = getQueryParam(q, "hash");
+        if (hash == null || !hash.matches("[0-9a-fA-F]{32}")) { send(ex, 400, "Parâmetros inválidos", "text/plain"); return; }
+        int h = 0;
+        try { String hv = getQueryParam(q, "h"); if (hv != null) h = Integer.parseInt(hv); } catch (NumberFormatException ignore) {}
+        java.nio.file.Path file = core.contentFileByHash(hash, h);
+        if (file == null) { send(ex, 404, "Não encontrado", "text/plain"); return; }
+        String type = h > 0 ? "image/jpeg" : ServidorGaleria.mediaTypeOf(file.getFileName().toString());
+        String etag = "\"" + hash.toLowerCase(Locale.ROOT) + (h > 0 ? "-" + h : "") + "\"";
+        sendFileRange(ex, file, type, etag, "private, max-age=31536000, immutable");
+    }
+
+    /**
+     * Envia um arquivo com ETag/304 e Range (um intervalo: {@code bytes=a-b}, {@code a-} ou {@code -n}).
+     * Range inválido (ex.: {@code b < a}) é ignorado e o arquivo vai inteiro; 416 só para intervalo válido fora do arquivo.
+     * O corpo é transferido do FileChannel direto para o socket, sem carregar o arquivo na memória.
+     */
+    static void sendFileRange(HttpExchange ex, java.nio.file.Path file, String contentType, String etag, String cacheControl) throws IOException {
+        Headers rh = ex.getRequestHeaders();
+        Headers h = ex.getResponseHeaders();
+        h.set("ETag", etag);
+        h.set("Cache-Control", cacheControl);
+        h.set("Accept-Ranges", "bytes");
+        if (etag.equals(rh.getFirst("If-None-Match"))) { ex.sendResponseHeaders(304, -1); ex.close(); return; }
+        try (java.nio.channels.FileChannel ch = java.nio.channels.FileChannel.open(file, java.nio.file.StandardOpenOption.READ)) {
+            long size = ch.size();
+            long start = 0, end = size - 1;
+            boolean partial = false;
+            String range = rh.getFirst("Range");
+            String ifRange = rh.getFirst("If-Range");
+            // Intervalos múltiplos ou If-Range de outra versão: responde o arquivo inteiro (permitido pela RFC 7233)
+            if (range != null && range.startsWith("bytes=") && !range.contains(",") && (ifRange == null || ifRange.equals(etag))) {
+                String spec = range.substring(6).trim();
+                int dash = spec.indexOf('-');
+                try {
+                    if (dash == 0) {
+                        long n = Long.parseLong(spec.substring(1));
+                        start = Math.max(0, size - n);
+                    } else if (dash > 0) {
+                        start = Long.parseLong(spec.substring(0, dash));
+                        if (dash < spec.length() - 1) {
+                            long last = Long.parseLong(spec.substring(dash + 1));
+                            // last < first é intervalo inválido, não insatisfazível: ignora o Range (RFC 7233 §2.1)
+                            if (last < start) throw new NumberFormatException("intervalo invertido");
+                            end = Math.min(end, last);
+                        }
+                    }
+                    partial = dash >= 0;
+                } catch (NumberFormatException ignore) { start = 0; end = size - 1; partial = false; }
+                if (partial && (start >= size || start > end)) {
+                    h.set("Content-Range", "bytes */" + size);
+                    ex.sendResponseHeaders(416, -1);
+                    ex.close();
+                    return;
+                }
+            }
+            long length = end - start + 1;
+            h.set("Content-Type", contentType);
+            if (partial) h.set("Content-Range", "bytes " + start + "-" + end + "/" + size);
+            if ("HEAD".equalsIgnoreCase(ex.getRequestMethod())) {
+                h.set("Content-Length", String.valueOf(length));
+                ex.sendResponseHeaders(partial ? 206 : 200, -1);
+                ex.close();
+                return;
+            }
+            ex.sendResponseHeaders(partial ? 206 : 200, length == 0 ? -1 : length);
+            try (var os = ex.getResponseBody()) {
+                java.nio.channels.WritableByteChannel out = java.nio.channels.Channels.newChannel(os);
+                long pos = start;
+                while (pos <= end) {
+                    long n = ch.transferTo(pos, end - pos + 1, out);
+                    if (n <= 0) break;
+                    pos += n;
+                }
+            }
+        }
+    }
+
     private void controles(HttpExchange ex) throws IOException {
         String m = ex.getRequestMethod();
         if ("GET".equalsIgnoreCase(m)) {
-            System.out.println("[WEB] GET /control");
+            // ETag pela versão da configuração: sem mudanças, responde 304 sem corpo
             PlaybackConfig c = core.getPlaybackConfig();
-            String curDate = core.getDisplayDateFilter();
-            String json = "{\"paused\":"+c.paused+",\"interval\":"+c.intervalMillis+",\"date\":\""+(curDate==null?"":curDate)+"\",\"forced\":\""+(c.forcedRelativePath==null?"":c.forcedRelativePath)+"\",\"loop\":"+c.loopVideo+",\"videoPaused\":"+c.videoPaused+",\"muted\":"+c.muted+"}";
-            send(ex, 200, json, "application/json; charset=UTF-8");
+            String etag = "\"cfg-" + c.version + "\"";
+            Headers h = ex.getResponseHeaders();
+            h.set("ETag", etag);
+            h.set("Cache-Control", "no-cache");
+            if (etag.equals(ex.getRequestHeaders().getFirst("If-None-Match"))) { ex.sendResponseHeaders(304, -1); ex.close(); return; }
+            System.out.println("[WEB] GET /control");
+            send(ex, 200, controlJson(c, core.getDisplayDateFilter()), "application/json; charset=UTF-8");
             return;
         }
         if (!"POST".equalsIgnoreCase(m)) { send(ex, 405, "Método não permitido", "text/plain"); return; }
@@ -166,12 +415,45 @@ class ServidorHttpUploader {
     send(ex, 200, "{\"status\":\"OK\"}", "application/json");
     }
 
+    // GET: andamento do scrubber + arquivos em quarentena; POST: inicia uma passada agora
+    private void integridade(HttpExchange ex) throws IOException {
+        if ("POST".equalsIgnoreCase(ex.getRequestMethod())) {
+            boolean started = core.startIntegrityScrub();
+            send(ex, started ? 202 : 409, started ? "{\"status\":\"OK\"}" : "{\"status\":\"EM_ANDAMENTO\"}", "application/json");
+            return;
+        }
+        if (!"GET".equalsIgnoreCase(ex.getRequestMethod())) { send(ex, 405, "Método não permitido", "text/plain"); return; }
+        VerificadorIntegridade.Progresso p = core.integrityProgress();
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"running\":").append(p.emAndamento)
+          .append(",\"checked\":").append(p.conferidos)
+          .append(",\"total\":").append(p.total)
+          .append(",\"mismatches\":").append(p.divergentes)
+          .append(",\"bytes\":").append(p.bytes)
+          .append(",\"startedAt\":").append(p.inicio)
+          .append(",\"lastCompletedAt\":").append(p.ultimaConclusao)
+          .append(",\"limitBytesPerSec\":").append(p.limiteBytesPorSegundo)
+          .append(",\"intervalHours\":").append(p.intervaloHoras)
+          .append(",\"quarantine\":[");
+        List<Quarentena.Achado> achados = core.quarantineFindings();
+        for (int i = 0; i < achados.size(); i++) {
+            Quarentena.Achado a = achados.get(i);
+            if (i > 0) sb.append(',');
+            sb.append("{\"path\":").append(jsonStr(a.rel))
+              .append(",\"expected\":").append(jsonStr(a.esperado))
+              .append(",\"actual\":").append(jsonStr(a.atual))
+              .append(",\"source\":").append(jsonStr(a.origem))
+              .append(",\"at\":").append(a.quando).append('}');
+        }
+        sb.append("]}");
+        send(ex, 200, sb.toString(), "application/json; charset=UTF-8");
+    }
+
     // Utilidades HTTP (copiadas do core para evitar acesso direto a campos privados)
     static void send(HttpExchange ex, int status, String content, String contentType) throws IOException { byte[] bytes = content.getBytes(StandardCharsets.UTF_8); Headers h = ex.getResponseHeaders(); h.set("Content-Type", contentType); h.set("Cache-Control", "no-store"); ex.sendResponseHeaders(status, bytes.length); try (var os = ex.getResponseBody()) { os.write(bytes); } }
     private static String readTextResource(String cp) throws IOException { try (InputStream in = ServidorHttpUploader.class.getClassLoader().getResourceAsStream(cp)) { if (in == null) return null; return new String(in.readAllBytes(), StandardCharsets.UTF_8); } }
     static String getCookie(HttpExchange ex, String name) { List<String> cookies = ex.getRequestHeaders().get("Cookie"); if (cookies == null) return null; for (String header : cookies) { String[] parts = header.split("; "); for (String p : parts) { int i = p.indexOf('='); if (i>0) { String k = p.substring(0,i); String v = p.substring(i+1); if (name.equals(k)) return v; } } } return null; }
-    static String toJsonArray(List<String> list) { StringBuilder sb = new StringBuilder(); sb.append('['); for (int i=0;i<list.size();i++) { if (i>0) sb.append(','); sb.append('"').append(list.get(i).replace("\\","/").replace("\"","%22")).append('"'); } sb.append(']'); return sb.toString(); }
-    static byte[] readBodyLimited(InputStream in, long max) throws IOException { try { ByteArrayOutputStream bos = new ByteArrayOutputStream(); byte[] buf = new byte[8192]; long total = 0; int r; while ((r = in.read(buf)) != -1) { total += r; if (total > max) break; bos.write(buf, 0, r); } return bos.toByteArray(); } finally { try { in.close(); } catch (IOException ignore) {} } }
+    static String jsonStr(String s) { return s == null ? "null" : EscritorJson.literal(s); }
     static String getQueryParam(String query, String key) { if (query == null) return null; String[] parts = query.split("&"); for (String p : parts) { int i = p.indexOf('='); if (i <= 0) continue; String k = urlDecode(p.substring(0, i)); if (key.equals(k)) return urlDecode(p.substring(i + 1)); } return null; }
     static String urlDecode(String s) { try { return java.net.URLDecoder.decode(s, StandardCharsets.UTF_8.name()); } catch (java.io.UnsupportedEncodingException e) { return s; } }
     private boolean isRateLimited(HttpExchange ex) {
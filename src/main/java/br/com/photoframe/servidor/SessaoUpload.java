@@ -0,0 +1,104 @@
+package br.com.photoframe.servidor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+
+import br.com.photoframe.compartilhado.core.HashUtil;
+
+/**
+ * Sessão de upload em partes (retomável) criada por {@code beginUpload}.
+ *
+ * Os blocos precisam chegar em ordem: um bloco só é aceito se o offset for exatamente
+ * o total já recebido. Assim o MD5 é calculado de forma incremental e o cliente pode
+ * retomar perguntando {@link #recebido()} depois de uma queda de conexão.
+ */
+class SessaoUpload {
+    final String id;
+    final String fileName;
+    final long totalBytes;
+    final String clientId;
+    final Path partFile;
+    // Bytes reservados no orçamento de uploads em voo; devolvidos na publicação ou no descarte
+    private final ControleAdmissao.Vaga reserva;
+    private final MessageDigest md = HashUtil.newMd5();
+    private FileChannel channel;
+    private long received;
+    private volatile long lastActivity = System.currentTimeMillis();
+    // Caminho relativo publicado pelo commit (null até lá); repetir o commit só devolve sucesso
+    private volatile String publicado;
+
+    SessaoUpload(String id, String fileName, long totalBytes, String clientId, Path partFile, ControleAdmissao.Vaga reserva) throws IOException {
+        this.id = id;
+        this.fileName = fileName;
+        this.totalBytes = totalBytes;
+        this.clientId = clientId;
+        this.partFile = partFile;
+        this.reserva = reserva;
+        this.channel = FileChannel.open(partFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Grava o bloco se ele continuar exatamente de onde o último parou.
+     *
+     * @return total de bytes recebidos após a operação (inalterado se o bloco foi recusado)
+     */
+    synchronized long anexar(long offset, byte[] chunk) throws IOException {
+        lastActivity = System.currentTimeMillis();
+        if (channel == null || chunk == null || offset != received) return received;
+        if (received + chunk.length > totalBytes) {
+            System.err.println("[UPLOAD] Sessão " + id + ": bloco ultrapassa o tamanho declarado, ignorado");
+            return received;
+        }
+        ByteBuffer bb = ByteBuffer.wrap(chunk);
+        long pos = received;
+        while (bb.hasRemaining()) pos += channel.write(bb, pos);
+        md.update(chunk);
+        received += chunk.length;
+        return received;
+    }
+
+    synchronized long recebido() {
+        lastActivity = System.currentTimeMillis();
+        return received;
+    }
+
+    synchronized boolean completo() { return received == totalBytes; }
+
+    /** MD5 do conteúdo recebido até agora, sem interromper o cálculo incremental. */
+    synchronized String md5() {
+        try {
+            return HashUtil.toHex(((MessageDigest) md.clone()).digest());
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("MD5 sem suporte a clone", e);
+        }
+    }
+
+    /** Marca a sessão como publicada; a partir daqui ela só responde a repetições do commit. */
+    void marcarPublicado(String relativePath) {
+        publicado = relativePath;
+        lastActivity = System.currentTimeMillis();
+        reserva.close();
+    }
+
+    String publicado() { return publicado; }
+
+    long inativoHaMillis() { return System.currentTimeMillis() - lastActivity; }
+
+    /** Fecha o arquivo parcial (antes do commit ou do descarte). */
+    synchronized void fechar() {
+        if (channel == null) return;
+        try { channel.force(false); channel.close(); } catch (IOException ignore) {}
+        channel = null;
+    }
+
+    void descartar() {
+        fechar();
+        try { Files.deleteIfExists(partFile); } catch (IOException ignore) {}
+        reserva.close();
+    }
+}
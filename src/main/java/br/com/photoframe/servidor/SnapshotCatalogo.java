@@ -0,0 +1,186 @@
+package br.com.photoframe.servidor;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import br.com.photoframe.compartilhado.core.FileNameUtil;
+
+/**
+ * Snapshot binário do catálogo ({@code uploads/.catalog.bin}) e varredura paralela da pasta de uploads.
+ *
+ * Na inicialização o snapshot é lido numa única leitura sequencial, evitando percorrer anos de pastas
+ * {@code YYYY/MM/DD}; a conferência com o disco acontece depois, em segundo plano.
+ *
+ * Formato (big-endian, via {@link DataOutputStream}):
+ * - {@code int} mágico "PFCT", {@code int} versão, {@code int} quantidade de entradas
+ * - por entrada, em ordem crescente: {@code short} tamanho do prefixo comum com a anterior + {@code UTF} do restante
+ *   (os caminhos compartilham {@code yyyy/MM/dd/yyyyMMdd_}, então o arquivo fica pequeno)
+ * - {@code long} CRC32 de tudo que vem antes
+ */
+class SnapshotCatalogo {
+    private static final int MAGICO = 0x50464354; // "PFCT"
+    private static final int VERSAO = 1;
+
+    private final Path arquivo;
+
+    SnapshotCatalogo(Path arquivo) {
+        this.arquivo = arquivo;
+    }
+
+    /**
+     * Lê o snapshot.
+     *
+     * @return caminhos relativos em ordem crescente, ou null se ausente, de outra versão ou corrompido
+     */
+    List<String> carregar() {
+        if (!Files.exists(arquivo)) return null;
+        try {
+            byte[] dados = Files.readAllBytes(arquivo);
+            if (dados.length < 20) return null;
+            CRC32 crc = new CRC32();
+            crc.update(dados, 0, dados.length - 8);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(dados));
+            if (in.readInt() != MAGICO || in.readInt() != VERSAO) return null;
+            int n = in.readInt();
+            List<String> rels = new ArrayList<>(n);
+            String anterior = "";
+            for (int i = 0; i < n; i++) {
+                int comum = in.readUnsignedShort();
+                if (comum > anterior.length()) return null;
+                anterior = anterior.substring(0, comum) + in.readUTF();
+                rels.add(anterior);
+            }
+            if (in.readLong() != crc.getValue()) {
+                System.err.println("[INDICE] Snapshot do catálogo corrompido (CRC), ignorado.");
+                return null;
+            }
+            return rels;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[INDICE] Falha ao ler snapshot do catálogo: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Grava o snapshot (arquivo temporário + move atômico).
+     *
+     * @param rels caminhos relativos em ordem crescente
+     */
+    void gravar(List<String> rels) {
+        Path tmp = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(arquivo.toAbsolutePath().getParent());
+            CRC32 crc = new CRC32();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 64 * 1024))) {
+                DataOutputStream corpo = new DataOutputStream(new CheckedOutputStream(out, crc));
+                corpo.writeInt(MAGICO);
+                corpo.writeInt(VERSAO);
+                corpo.writeInt(rels.size());
+                String anterior = "";
+                for (String rel : rels) {
+                    int comum = Math.min(prefixoComum(anterior, rel), 0xFFFF);
+                    corpo.writeShort(comum);
+                    corpo.writeUTF(rel.substring(comum));
+                    anterior = rel;
+                }
+                corpo.flush();
+                out.writeLong(crc.getValue());
+            }
+            Files.move(tmp, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("[INDICE] Falha ao gravar snapshot do catálogo: " + e.getMessage());
+            try { Files.deleteIfExists(tmp); } catch (IOException ignore) {}
+        }
+    }
+
+    /**
+     * Varre a pasta de uploads em paralelo (uma tarefa por pasta de mês) e devolve os arquivos exibíveis
+     * em ordem crescente. Pastas e arquivos ocultos (.parts, temporários, índices) são ignorados.
+     */
+    static List<String> varrer(Path base) {
+        if (!Files.isDirectory(base)) return new ArrayList<>();
+        List<Path> raizes = new ArrayList<>();
+        List<String> soltos = Collections.synchronizedList(new ArrayList<>());
+        // Desce dois níveis (ano/mês) para ter unidades de trabalho independentes
+        for (Path ano : listar(base, soltos, base)) {
+            raizes.addAll(listar(ano, soltos, base));
+        }
+        List<String> out = raizes.parallelStream()
+                .flatMap(r -> percorrer(base, r).stream())
+                .collect(Collectors.toCollection(ArrayList::new));
+        out.addAll(soltos);
+        Collections.sort(out);
+        return out;
+    }
+
+    /** Arquivos aceitos no catálogo: visíveis e com extensão aceita pelo upload. */
+    static boolean catalogavel(String nome) {
+        return !nome.startsWith(".") && FileNameUtil.isAllowedExtension(nome);
+    }
+
+    static String relativo(Path base, Path arquivo) {
+        return base.relativize(arquivo).toString().replace('\\', '/');
+    }
+
+    // Subpastas visíveis de dir; arquivos encontrados neste nível vão para soltos
+    private static List<Path> listar(Path dir, List<String> soltos, Path base) {
+        List<Path> subpastas = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir)) {
+            for (Path p : ds) {
+                String nome = p.getFileName().toString();
+                if (nome.startsWith(".")) continue;
+                if (Files.isDirectory(p)) subpastas.add(p);
+                else if (catalogavel(nome)) soltos.add(relativo(base, p));
+            }
+        } catch (IOException e) {
+            System.err.println("[INDICE] Falha ao listar " + dir + ": " + e.getMessage());
+        }
+        return subpastas;
+    }
+
+    private static List<String> percorrer(Path base, Path raiz) {
+        List<String> out = new ArrayList<>();
+        try {
+            Files.walkFileTree(raiz, new SimpleFileVisitor<Path>() {
+                @Override public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    return !dir.equals(raiz) && dir.getFileName().toString().startsWith(".") ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+                }
+                @Override public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile() && catalogavel(file.getFileName().toString())) out.add(relativo(base, file));
+                    return FileVisitResult.CONTINUE;
+                }
+                @Override public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("[INDICE] Falha ao varrer " + raiz + ": " + e.getMessage());
+        }
+        return out;
+    }
+
+    private static int prefixoComum(String a, String b) {
+        int n = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < n && a.charAt(i) == b.charAt(i)) i++;
+        // Não corta um par surrogate ao meio
+        if (i > 0 && i < b.length() && Character.isLowSurrogate(b.charAt(i))) i--;
+        return i;
+    }
+}
@@ -0,0 +1,159 @@
+package br.com.photoframe.servidor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import br.com.photoframe.compartilhado.core.HashUtil;
+
+/**
+ * Scrubber de integridade: relê todos os arquivos do catálogo periodicamente, com taxa de leitura
+ * limitada, e entrega o MD5 calculado ao servidor, que compara com o índice ({@code .hashes.tsv}),
+ * atualiza o {@link CacheVerificacao} e coloca divergências em {@link Quarentena}. Roda numa thread
+ * própria ("pf-scrubber") com prioridade mínima, para não atrasar a manutenção nem a exibição.
+ * O andamento da passada atual pode ser consultado por {@link #progresso()}.
+ *
+ * Configuração por propriedades do sistema:
+ * - {@code scrub.mbps}: limite de leitura em MB/s (padrão 20; 0 = sem limite)
+ * - {@code scrub.intervalHours}: intervalo entre passadas em horas (padrão 24; 0 = desativado)
+ */
+class VerificadorIntegridade {
+    /** Recebe o resultado de cada arquivo conferido (atributos lidos antes do hash). */
+    interface Resultado {
+        /** @return false se o arquivo divergiu do índice */
+        boolean conferido(String rel, BasicFileAttributes attrs, String md5);
+    }
+
+    /** Retrato imutável do andamento do scrubber. */
+    static final class Progresso {
+        final boolean emAndamento;
+        final int conferidos;
+        final int total;
+        final int divergentes;
+        final long bytes;
+        final long inicio;
+        final long ultimaConclusao;
+        final long limiteBytesPorSegundo;
+        final long intervaloHoras;
+
+        Progresso(boolean emAndamento, int conferidos, int total, int divergentes, long bytes,
+                  long inicio, long ultimaConclusao, long limiteBytesPorSegundo, long intervaloHoras) {
+            this.emAndamento = emAndamento;
+            this.conferidos = conferidos;
+            this.total = total;
+            this.divergentes = divergentes;
+            this.bytes = bytes;
+            this.inicio = inicio;
+            this.ultimaConclusao = ultimaConclusao;
+            this.limiteBytesPorSegundo = limiteBytesPorSegundo;
+            this.intervaloHoras = intervaloHoras;
+        }
+    }
+
+    private static final int BLOCO = 64 * 1024;
+    private static final long ATRASO_INICIAL_MIN = 10;
+
+    private final Path base;
+    private final Supplier<List<String>> catalogo;
+    private final Resultado resultado;
+    private final long bytesPorSegundo;
+    private final long intervaloHoras;
+    private final AtomicBoolean rodando = new AtomicBoolean(false);
+    // Andamento da passada atual/última (escrito só pela thread do scrubber)
+    private volatile int conferidos, total, divergentes;
+    private volatile long bytes, inicio, ultimaConclusao;
+    private final ScheduledExecutorService agenda = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "pf-scrubber"); t.setDaemon(true); t.setPriority(Thread.MIN_PRIORITY); return t;
+    });
+
+    VerificadorIntegridade(Path base, Supplier<List<String>> catalogo, Resultado resultado) {
+        this.base = base;
+        this.catalogo = catalogo;
+        this.resultado = resultado;
+        this.bytesPorSegundo = Math.max(0, Long.getLong("scrub.mbps", 20)) * 1024 * 1024;
+        this.intervaloHoras = Math.max(0, Long.getLong("scrub.intervalHours", 24));
+    }
+
+    void iniciar() {
+        if (intervaloHoras == 0) { System.out.println("[INTEGRIDADE] Scrubber desativado (scrub.intervalHours=0)."); return; }
+        agenda.scheduleWithFixedDelay(this::passada, ATRASO_INICIAL_MIN, intervaloHoras * 60, TimeUnit.MINUTES);
+    }
+
+    void parar() {
+        agenda.shutdownNow();
+    }
+
+    /**
+     * Agenda uma passada imediata.
+     *
+     * @return false se já há uma passada em andamento
+     */
+    boolean executarAgora() {
+        if (rodando.get()) return false;
+        agenda.execute(this::passada);
+        return true;
+    }
+
+    Progresso progresso() {
+        return new Progresso(rodando.get(), conferidos, total, divergentes, bytes, inicio, ultimaConclusao,
+                bytesPorSegundo, intervaloHoras);
+    }
+
+    private void passada() {
+        if (!rodando.compareAndSet(false, true)) return;
+        try {
+            List<String> rels = catalogo.get();
+            inicio = System.currentTimeMillis();
+            total = rels.size();
+            conferidos = 0; divergentes = 0; bytes = 0;
+            for (String rel : rels) {
+                Path p = base.resolve(rel);
+                try {
+                    BasicFileAttributes attrs = Files.readAttributes(p, BasicFileAttributes.class);
+                    if (!resultado.conferido(rel, attrs, md5Limitado(p))) divergentes++;
+                    bytes += attrs.size();
+                } catch (IOException e) {
+                    // Arquivo removido durante a passada: o observador/índice cuidam disso
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                conferidos++;
+            }
+            ultimaConclusao = System.currentTimeMillis();
+            System.out.println("[INTEGRIDADE] Scrub concluído: " + conferidos + " arquivo(s), " + (bytes / (1024 * 1024))
+                    + " MB em " + ((ultimaConclusao - inicio) / 1000) + " s, " + divergentes + " divergência(s)");
+        } finally {
+            rodando.set(false);
+        }
+    }
+
+    // MD5 em blocos, dormindo o necessário para não passar de bytesPorSegundo
+    private String md5Limitado(Path p) throws IOException, InterruptedException {
+        MessageDigest md = HashUtil.newMd5();
+        byte[] buf = new byte[BLOCO];
+        long inicio = System.nanoTime();
+        long lidos = 0;
+        try (InputStream in = Files.newInputStream(p)) {
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                md.update(buf, 0, n);
+                lidos += n;
+                if (bytesPorSegundo > 0) {
+                    long devidoMs = lidos * 1000 / bytesPorSegundo - (System.nanoTime() - inicio) / 1_000_000;
+                    if (devidoMs > 0) Thread.sleep(devidoMs);
+                }
+            }
+        }
+        return HashUtil.toHex(md.digest());
+    }
+}
@@ -0,0 +1,210 @@
+package br.com.photoframe.servidor;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * Versões de exibição (renditions) das imagens: JPEGs reduzidos para telas 1080p e 4K, gravados em
+ * {@code uploads/.renditions/<md5>_<altura>.jpg}.
+ *
+ * São geradas em segundo plano (uma thread de baixa prioridade, pois decodificar fotos grandes usa
+ * bastante memória) logo após o upload, ou na primeira vez que a imagem é pedida, para arquivos
+ * anteriores a este recurso. A chave é o MD5 do original: arquivos duplicados compartilham a mesma
+ * versão e ela nunca fica desatualizada em relação ao conteúdo.
+ */
+class VersoesExibicao {
+    /** Caixas de exibição disponíveis (largura x altura), da menor para a maior. */
+    private static final int[][] CAIXAS = { { 1920, 1080 }, { 3840, 2160 } };
+    private static final float QUALIDADE_JPEG = 0.85f;
+
+    private final Path dir;
+    // MD5s na fila de geração / já resolvidos nesta execução (versões gravadas, desnecessárias ou ilegíveis)
+    private final Set<String> pendentes = ConcurrentHashMap.newKeySet();
+    private final Set<String> resolvidas = ConcurrentHashMap.newKeySet();
+    private final Map<String, int[]> dimensoes = new ConcurrentHashMap<>();
+    private final ExecutorService gerador = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "pf-renditions"); t.setDaemon(true); t.setPriority(Thread.MIN_PRIORITY); return t;
+    });
+
+    VersoesExibicao(Path dir) {
+        this.dir = dir;
+    }
+
+    /** Só imagens que o ImageIO decodifica (HEIC/vídeos ficam com o original). */
+    static boolean suportado(String nome) {
+        String low = nome.toLowerCase(Locale.ROOT);
+        return low.endsWith(".jpg") || low.endsWith(".jpeg") || low.endsWith(".png");
+    }
+
+    /**
+     * Bytes da menor versão que cobre a tela informada.
+     *
+     * @return null se a tela é maior que todas as versões, ou se a versão ainda não existe/não é necessária
+     */
+    byte[] ler(String md5, int largura, int altura) {
+        return lerAltura(md5, escolherAltura(md5, largura, altura));
+    }
+
+    /**
+     * Altura da menor versão já gravada que cobre a tela.
+     *
+     * @return altura da caixa (ex.: 1080), ou 0 se o original deve ser usado
+     */
+    int escolherAltura(String md5, int largura, int altura) {
+        for (int[] caixa : CAIXAS) {
+            if (caixa[0] < largura || caixa[1] < altura) continue;
+            return Files.exists(arquivo(md5, caixa)) ? caixa[1] : 0;
+        }
+        return 0;
+    }
+
+    /** Bytes da versão com a altura informada, ou null se não existir. */
+    byte[] lerAltura(String md5, int alturaCaixa) {
+        Path p = caminho(md5, alturaCaixa);
+        if (p == null) return null;
+        try { return Files.readAllBytes(p); } catch (IOException e) { return null; }
+    }
+
+    /** Arquivo da versão com a altura informada, ou null se não existir. */
+    Path caminho(String md5, int alturaCaixa) {
+        for (int[] caixa : CAIXAS) {
+            if (caixa[1] != alturaCaixa) continue;
+            Path p = arquivo(md5, caixa);
+            return Files.exists(p) ? p : null;
+        }
+        return null;
+    }
+
+    /** Largura/altura do original lidas só do cabeçalho (cacheadas por MD5); {0, 0} se desconhecidas. */
+    int[] dimensoes(String md5, Path original) {
+        return dimensoes.computeIfAbsent(md5, k -> {
+            try (ImageInputStream in = ImageIO.createImageInputStream(original.toFile())) {
+                Iterator<ImageReader> it = in == null ? null : ImageIO.getImageReaders(in);
+                if (it == null || !it.hasNext()) return new int[] { 0, 0 };
+                ImageReader r = it.next();
+                try { r.setInput(in, true, true); return new int[] { r.getWidth(0), r.getHeight(0) }; }
+                finally { r.dispose(); }
+            } catch (IOException | RuntimeException e) {
+                return new int[] { 0, 0 };
+            }
+        });
+    }
+
+    /** Menor versão já gravada (fonte barata para miniaturas), ou null. */
+    Path menorExistente(String md5) {
+        for (int[] caixa : CAIXAS) {
+            Path p = arquivo(md5, caixa);
+            if (Files.exists(p)) return p;
+        }
+        return null;
+    }
+
+    /** Apaga as versões de um conteúdo que não está mais em nenhum arquivo do catálogo. */
+    void remover(String md5) {
+        resolvidas.remove(md5); // se o conteúdo voltar, as versões são geradas de novo
+        for (int[] caixa : CAIXAS) {
+            try { Files.deleteIfExists(arquivo(md5, caixa)); }
+            catch (IOException e) { System.err.println("[RENDITION] Falha ao apagar versão de " + md5 + ": " + e.getMessage()); }
+        }
+    }
+
+    /** Enfileira a geração das versões do original, se ainda não existirem. */
+    void agendar(Path original, String md5) {
+        if (md5 == null || !suportado(original.getFileName().toString())) return;
+        if (resolvidas.contains(md5) || Files.exists(arquivo(md5, CAIXAS[CAIXAS.length - 1]))) return;
+        if (!pendentes.add(md5)) return;
+        gerador.execute(() -> {
+            try { gerar(original, md5); } finally { pendentes.remove(md5); }
+        });
+    }
+
+    private void gerar(Path original, String md5) {
+        try {
+            BufferedImage img = ImageIO.read(original.toFile());
+            if (img == null) { resolvidas.add(md5); return; }
+            Files.createDirectories(dir);
+            int geradas = 0;
+            for (int[] caixa : CAIXAS) {
+                double escala = Math.min((double) caixa[0] / img.getWidth(), (double) caixa[1] / img.getHeight());
+                if (escala >= 1.0) break; // original já cabe nesta caixa (e nas maiores)
+                Path destino = arquivo(md5, caixa);
+                if (Files.exists(destino)) { geradas++; continue; }
+                int w = Math.max(1, (int) Math.round(img.getWidth() * escala));
+                int h = Math.max(1, (int) Math.round(img.getHeight() * escala));
+                gravarJpeg(reduzir(img, w, h), destino, QUALIDADE_JPEG);
+                geradas++;
+            }
+            resolvidas.add(md5);
+            if (geradas > 0) System.out.println("[RENDITION] " + geradas + " versão(ões) gerada(s) para " + original.getFileName());
+        } catch (IOException | RuntimeException | OutOfMemoryError e) {
+            resolvidas.add(md5);
+            System.err.println("[RENDITION] Falha ao gerar versões de " + original.getFileName() + ": " + e);
+        }
+    }
+
+    // Reduz em etapas de no máximo 2x (bilinear), o que preserva detalhes sem o custo do SCALE_SMOOTH
+    static BufferedImage reduzir(BufferedImage src, int w, int h) {
+        BufferedImage atual = src;
+        int cw = src.getWidth(), ch = src.getHeight();
+        do {
+            cw = Math.max(w, cw / 2);
+            ch = Math.max(h, ch / 2);
+            BufferedImage prox = new BufferedImage(cw, ch, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = prox.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(atual, 0, 0, cw, ch, java.awt.Color.BLACK, null); // transparência vira fundo preto (igual à tela)
+            g.dispose();
+            atual = prox;
+        } while (cw != w || ch != h);
+        return atual;
+    }
+
+    // Grava num temporário exclusivo da mesma pasta e publica com move atômico: dois geradores do mesmo
+    // destino nunca escrevem no mesmo arquivo, e quem lê só vê o JPEG completo
+    static void gravarJpeg(BufferedImage img, Path destino, float qualidade) throws IOException {
+        Iterator<ImageWriter> it = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!it.hasNext()) throw new IOException("sem encoder JPEG");
+        ImageWriter writer = it.next();
+        Path tmp = Files.createTempFile(destino.getParent(), destino.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream os = Files.newOutputStream(tmp); ImageOutputStream ios = ImageIO.createImageOutputStream(os)) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(qualidade);
+                writer.setOutput(ios);
+                writer.write(null, new IIOImage(img, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(tmp, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp); // só sobra se algo falhou antes do move
+        }
+    }
+
+    private Path arquivo(String md5, int[] caixa) {
+        return dir.resolve(md5.toLowerCase(Locale.ROOT) + "_" + caixa[1] + ".jpg");
+    }
+}
@@ -0,0 +1,190 @@
+package br.com.photoframe.servidor.display;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import br.com.photoframe.compartilhado.core.HashUtil;
+
+/**
+ * Cache do viewer em dois níveis, ambos indexados pela chave de conteúdo do descritor (hash + versão):
+ * - memória: LRU de imagens já decodificadas e escaladas para a tela, limitado por orçamento de bytes;
+ * - disco: arquivos de mídia brutos em {@code ~/.photoframe/cache}, limitado por tamanho total (LRU por acesso).
+ *
+ * Numa galeria em loop, a repetição de um item não usa rede nem decodificação. Vídeos já em cache
+ * tocam direto do arquivo; os demais tocam por streaming HTTP enquanto uma cópia é gravada aqui em
+ * segundo plano ({@link #gravar}), para a próxima volta do loop.
+ *
+ * Limites por propriedades do sistema: {@code viewer.cacheMb} (memória; padrão 1/4 do heap, máx. 256)
+ * e {@code viewer.diskCacheMb} (disco; padrão 2048).
+ */
+class CacheConteudo {
+    /** Busca os bytes no servidor quando o conteúdo não está em disco. */
+    interface Baixador {
+        byte[] baixar() throws IOException;
+    }
+
+    // Os arquivos mais recentes nunca são removidos (ex.: vídeo em reprodução)
+    private static final int PROTEGIDOS = 2;
+
+    private final Path dir;
+    private final long limiteMemoria;
+    private final long limiteDisco;
+    private final LinkedHashMap<String, BufferedImage> memoria = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytesMemoria;
+    // nome do arquivo → tamanho, em ordem de acesso
+    private final LinkedHashMap<String, Long> disco = new LinkedHashMap<>(256, 0.75f, true);
+    private long bytesDisco;
+
+    CacheConteudo() {
+        long heap = Runtime.getRuntime().maxMemory();
+        this.limiteMemoria = Long.getLong("viewer.cacheMb", Math.min(256, heap / 4 / (1024 * 1024))) * 1024 * 1024;
+        this.limiteDisco = Long.getLong("viewer.diskCacheMb", 2048) * 1024 * 1024;
+        this.dir = Paths.get(System.getProperty("user.home"), ".photoframe", "cache");
+        carregarIndiceDisco();
+    }
+
+    /** Imagem escalada em memória, ou null. */
+    synchronized BufferedImage imagem(String chave) {
+        return memoria.get(chave);
+    }
+
+    synchronized void guardarImagem(String chave, BufferedImage img) {
+        long tam = (long) img.getWidth() * img.getHeight() * 4;
+        if (tam > limiteMemoria) return;
+        BufferedImage antiga = memoria.put(chave, img);
+        if (antiga != null) bytesMemoria -= (long) antiga.getWidth() * antiga.getHeight() * 4;
+        bytesMemoria += tam;
+        Iterator<Map.Entry<String, BufferedImage>> it = memoria.entrySet().iterator();
+        while (bytesMemoria > limiteMemoria && it.hasNext()) {
+            Map.Entry<String, BufferedImage> e = it.next();
+            if (e.getKey().equals(chave)) continue;
+            bytesMemoria -= (long) e.getValue().getWidth() * e.getValue().getHeight() * 4;
+            it.remove();
+        }
+    }
+
+    /** Arquivo local com o conteúdo, se já estiver em disco (sem baixar); null caso contrário. */
+    Path existente(String chave, String extensao) {
+        String nome = chave + extensao;
+        Path p = dir.resolve(nome);
+        synchronized (this) {
+            if (!disco.containsKey(nome) || !Files.exists(p)) return null;
+            tocar(p);
+            return p;
+        }
+    }
+
+    /**
+     * Arquivo local com o conteúdo; baixa (fora do lock) e grava em disco se ainda não existir.
+     *
+     * @return caminho do arquivo, ou null se o servidor não devolveu o conteúdo
+     */
+    Path arquivo(String chave, String extensao, Baixador baixador) throws IOException {
+        String nome = chave + extensao;
+        Path p = dir.resolve(nome);
+        Path local = existente(chave, extensao);
+        if (local != null) return local;
+        byte[] dados = baixador.baixar();
+        if (dados == null) return null;
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, nome, ".tmp");
+        Files.write(tmp, dados);
+        publicar(tmp, nome, dados.length);
+        return p;
+    }
+
+    /** Se um conteúdo deste tamanho pode ficar no cache em disco. */
+    boolean cabeNoDisco(long bytes) {
+        return bytes > 0 && bytes <= limiteDisco;
+    }
+
+    /**
+     * Grava em disco o conteúdo lido do stream, sem carregá-lo na memória (vídeos). Só publica se o MD5 do
+     * que foi lido for o esperado (hex), então uma cópia truncada ou divergente nunca entra no cache.
+     *
+     * @return caminho do arquivo, ou null se o MD5 não conferiu
+     */
+    Path gravar(String chave, String extensao, InputStream in, String md5Esperado) throws IOException {
+        String nome = chave + extensao;
+        Path local = existente(chave, extensao);
+        if (local != null) return local;
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, nome, ".tmp");
+        try {
+            MessageDigest md = HashUtil.newMd5();
+            long tam = Files.copy(new DigestInputStream(in, md), tmp, StandardCopyOption.REPLACE_EXISTING);
+            if (!HashUtil.toHex(md.digest()).equalsIgnoreCase(md5Esperado)) {
+                Files.deleteIfExists(tmp);
+                return null;
+            }
+            publicar(tmp, nome, tam);
+            return dir.resolve(nome);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+    }
+
+    // Move o temporário para o nome final e contabiliza no orçamento de disco
+    private void publicar(Path tmp, String nome, long tam) throws IOException {
+        Files.move(tmp, dir.resolve(nome), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        synchronized (this) {
+            Long antigo = disco.put(nome, tam);
+            if (antigo != null) bytesDisco -= antigo;
+            bytesDisco += tam;
+            liberarDisco();
+        }
+    }
+
+    // Remove os menos acessados até caber no limite (requer o lock)
+    private void liberarDisco() {
+        if (bytesDisco <= limiteDisco) return;
+        List<String> ordem = new ArrayList<>(disco.keySet());
+        for (int i = 0; i < ordem.size() - PROTEGIDOS && bytesDisco > limiteDisco; i++) {
+            String nome = ordem.get(i);
+            try { Files.deleteIfExists(dir.resolve(nome)); } catch (IOException ignore) { continue; }
+            bytesDisco -= disco.remove(nome);
+        }
+    }
+
+    // Data de modificação guarda a ordem de acesso entre execuções
+    private static void tocar(Path p) {
+        try { Files.setLastModifiedTime(p, FileTime.fromMillis(System.currentTimeMillis())); } catch (IOException ignore) {}
+    }
+
+    private void carregarIndiceDisco() {
+        if (!Files.isDirectory(dir)) return;
+        List<Path> arquivos = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir)) {
+            for (Path p : ds) {
+                if (p.getFileName().toString().endsWith(".tmp")) { Files.deleteIfExists(p); continue; }
+                if (Files.isRegularFile(p)) arquivos.add(p);
+            }
+            arquivos.sort((a, b) -> {
+                try { return Files.getLastModifiedTime(a).compareTo(Files.getLastModifiedTime(b)); }
+                catch (IOException e) { return 0; }
+            });
+            for (Path p : arquivos) {
+                long tam = Files.size(p);
+                disco.put(p.getFileName().toString(), tam);
+                bytesDisco += tam;
+            }
+        } catch (IOException e) {
+            System.err.println("Falha ao ler cache do viewer: " + e.getMessage());
+        }
+    }
+}
@@ -7,25 +7,21 @@ import java.awt.Cursor;
 import java.awt.Graphics2D;
 import java.awt.GraphicsDevice;
 import java.awt.GraphicsEnvironment;
-import java.awt.Image;
 import java.awt.Point;
+import java.awt.RenderingHints;
 import java.awt.Toolkit;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.File;
-import java.io.FileOutputStream;
 import java.net.Inet4Address;
 import java.net.InetAddress;
 import java.net.NetworkInterface;
+import java.nio.file.Path;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
-import java.security.MessageDigest;
 import java.util.Enumeration;
-import java.util.HexFormat;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.imageio.ImageIO;
@@ -42,6 +38,7 @@ import com.google.zxing.common.BitMatrix;
 import com.google.zxing.qrcode.QRCodeWriter;
 
 import br.com.photoframe.compartilhado.GaleriaRemota;
+import br.com.photoframe.compartilhado.ItemExibicao;
 import br.com.photoframe.compartilhado.PlaybackConfig;
 import javafx.application.Platform;
 import javafx.embed.swing.JFXPanel;
@@ -67,11 +64,32 @@ public class Visualizador {
     private final JPanel centerPanel;
     private final CardLayout centerCards;
     private MediaPlayer currentPlayer;
-    private File currentTempFile;
-    private String lastHash;
+    // Cache local de conteúdo (imagens escaladas em memória + mídia em disco), por hash
+    private final CacheConteudo cache = new CacheConteudo();
+    // Versão de exibição do item mostrado (protocolo por descritor); 0 = nada ainda (o servidor começa em 1)
+    private volatile long shownVersion = 0;
     private GaleriaRemota remote;
-    private javax.swing.Timer pollTimer;
-    private final AtomicBoolean fetchBusy = new AtomicBoolean(false);
+    // Long-poll: timeout de cada espera e pausa após falha de RMI
+    private static final long LONG_POLL_MS = 30_000;
+    private static final long RETRY_MS = 2_000;
+    // Última configuração de reprodução recebida (versionada); null até a primeira resposta
+    private volatile PlaybackConfig playbackConfig;
+    // Base das URLs de mídia no servidor HTTP embutido (vídeos por streaming)
+    private volatile String mediaBaseUrl;
+    // Prefetch do próximo item (peekNextDisplayItem) numa thread própria
+    private final AtomicBoolean prefetchBusy = new AtomicBoolean(false);
+    private final java.util.concurrent.ExecutorService prefetcher = java.util.concurrent.Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "pf-prefetch"); t.setDaemon(true); return t;
+    });
+    // Cópia para o cache em disco dos vídeos que tocaram por streaming (um por vez, sem repetir chave em curso).
+    // Só com a rede livre: a cópia fica pendente enquanto o vídeo toca e é cortada se outro começar a tocar por streaming
+    private final java.util.concurrent.atomic.AtomicReference<Runnable> pendingVideoCache = new java.util.concurrent.atomic.AtomicReference<>();
+    private final java.util.concurrent.atomic.AtomicReference<java.net.HttpURLConnection> videoCacheConn = new java.util.concurrent.atomic.AtomicReference<>();
+    private volatile boolean streamingVideo = false;
+    private final java.util.Set<String> videoCacheFills = java.util.concurrent.ConcurrentHashMap.newKeySet();
+    private final java.util.concurrent.ExecutorService videoCacheFiller = java.util.concurrent.Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "pf-cache-video"); t.setDaemon(true); t.setPriority(Thread.MIN_PRIORITY); return t;
+    });
     // Controle de ESC (1x sai do fullscreen, 2x minimiza)
     private long lastEscAt = 0L;
     private int escCount = 0;
@@ -165,9 +183,7 @@ public class Visualizador {
     if (!fullscreen) toggleFullscreen();
     }
 
-    public void start(String host) throws Exception { start(host, 350); }
-
-    public void start(String host, int delayMs) throws Exception {
+    public void start(String host) throws Exception {
         Registry registry = LocateRegistry.getRegistry(host, 1099);
         this.remote = (GaleriaRemota) registry.lookup("GaleriaService");
         String httpPort = System.getProperty("httpPort", "18080");
@@ -177,67 +193,45 @@ public class Visualizador {
             if (lan != null) qrHost = lan;
         }
         String uploaderUrl = "http://" + qrHost + ":" + httpPort + "/uploader";
+        mediaBaseUrl = "http://" + host + ":" + httpPort;
         setQrOnOverlay(uploaderUrl);
 
-        // Poll periódico (não bloquear EDT)
-        pollTimer = new javax.swing.Timer(delayMs, e -> {
-            if (fetchBusy.getAndSet(true)) return;
-            new Thread(() -> {
-                try {
-                    // Sincroniza controles de vídeo (RMI em background)
-                    try {
-                        if (remote != null) {
-                            PlaybackConfig cfg = remote.getPlaybackConfig();
-                            if (cfg != null) applyVideoControls(cfg);
-                        }
-                    } catch (java.rmi.RemoteException ignore) {}
-
-                    // Busca próximo arquivo para exibir
-                    byte[] data = null;
-                    try { if (remote != null) data = remote.getNextDisplayFile(); } catch (java.rmi.RemoteException ignore) {}
-                    if (data != null) {
-                        String hash = hashBytes(data);
-                        if (hash == null || !hash.equals(lastHash)) {
-                            try {
-                                ByteArrayInputStream in = new ByteArrayInputStream(data);
-                                BufferedImage img = ImageIO.read(in);
-                                if (img != null) {
-                                    javax.swing.SwingUtilities.invokeLater(() -> { showImage(img); lastHash = hash; });
-                                    return;
-                                }
-                            } catch (java.io.IOException ignore) {}
-                            // Provável vídeo: delega para JavaFX
-                            playVideoFromBytes(data);
-                            lastHash = hash;
-                        }
-                    }
-                } finally {
-                    fetchBusy.set(false);
-                }
-            }, "pf-poll").start();
-        });
-        pollTimer.start();
+        // Long-poll em thread própria: o servidor só responde quando o item ou os controles mudam
+        Thread loop = new Thread(this::displayLoop, "pf-display");
+        loop.setDaemon(true);
+        loop.start();
+    }
 
-        // Busca imediata para reduzir sensação de atraso inicial (com 1 retry curto)
-        new Thread(() -> {
+    /**
+     * Espera mudanças com {@code waitForDisplayChange} e exibe o novo item. A cada retorno (mudança ou
+     * timeout) ressincroniza os controles de vídeo; sem mudanças, fica bloqueado sem tráfego.
+     */
+    private void displayLoop() {
+        while (true) {
             try {
-                byte[] data = remote.getNextDisplayFile();
-                if (data == null) {
-                    try { Thread.sleep(300); } catch (InterruptedException ignore) {}
-                    data = remote.getNextDisplayFile();
+                java.awt.DisplayMode dm = screenMode();
+                ItemExibicao item = remote.waitForDisplayChange(shownVersion, dm.getWidth(), dm.getHeight(), LONG_POLL_MS);
+                // Controles de vídeo só são reaplicados quando a versão da configuração muda
+                PlaybackConfig cfg = remote.getPlaybackConfigIfNewer(playbackConfig == null ? -1 : playbackConfig.version);
+                if (cfg != null) {
+                    playbackConfig = cfg;
+                    applyVideoControls(cfg);
                 }
-                if (data != null) {
-                    String hash = hashBytes(data);
-                    try {
-                        ByteArrayInputStream in = new ByteArrayInputStream(data);
-                        BufferedImage img = ImageIO.read(in);
-                        if (img != null) { showImage(img); lastHash = hash; return; }
-                    } catch (java.io.IOException ignore) {}
-                    playVideoFromBytes(data);
-                    lastHash = hash;
+                if (item != null && item.displayVersion != shownVersion && !showItem(item, dm.getWidth(), dm.getHeight())) {
+                    // Conteúdo indisponível agora: evita repetir a tentativa em laço
+                    Thread.sleep(1000);
                 }
-            } catch (java.io.IOException ignore) {}
-        }, "pf-initial-fetch").start();
+            } catch (java.rmi.RemoteException ex) {
+                try { Thread.sleep(RETRY_MS); } catch (InterruptedException ie) { return; }
+            } catch (InterruptedException ex) {
+                return;
+            }
+        }
+    }
+
+    private java.awt.DisplayMode screenMode() {
+        java.awt.GraphicsConfiguration gc = frame.getGraphicsConfiguration();
+        return (gc != null ? gc.getDevice() : gd).getDisplayMode();
     }
 
     private static String findLanIPv4() {
@@ -262,15 +256,156 @@ public class Visualizador {
         return null;
     }
 
-    private void showImage(BufferedImage img) {
-        int lw = Math.max(1, imageLabel.getWidth());
-        int lh = Math.max(1, imageLabel.getHeight());
-        int iw = img.getWidth();
-        int ih = img.getHeight();
-        double scale = Math.min((double) lw / iw, (double) lh / ih);
-        int nw = Math.max(1, (int) Math.round(iw * scale));
-        int nh = Math.max(1, (int) Math.round(ih * scale));
-        Image scaled = img.getScaledInstance(nw, nh, Image.SCALE_SMOOTH);
+    /**
+     * Protocolo por descritor: o item chega já escolhido para a resolução física da tela (versão 1080p/4K)
+     * e o conteúdo só é baixado, pelo hash, se não estiver no cache local.
+     *
+     * @return false se o conteúdo não pôde ser obtido
+     */
+    private boolean showItem(ItemExibicao item, int screenWidth, int screenHeight) throws java.rmi.RemoteException {
+        try {
+            if (item.isVideo()) {
+                // Do cache em disco se já estiver lá; senão por HTTP (/media com Range), começando a tocar
+                // com os primeiros blocos em vez de esperar o arquivo inteiro via RMI
+                Path cached = cache.existente(item.contentKey(), extensionOf(item));
+                String mediaUrl = mediaBaseUrl + "/media?hash=" + item.contentHash + "&h=" + item.renditionHeight;
+                shownVersion = item.displayVersion;
+                if (cached != null) {
+                    playVideo(cached.toUri().toString()); // parar o anterior libera a cópia pendente dele
+                } else {
+                    // A rede fica para o player: a cópia do vídeo anterior fica para a próxima exibição dele
+                    pendingVideoCache.set(null);
+                    playVideo(mediaUrl);
+                    streamingVideo = true;
+                    abortVideoCacheFill();
+                    pendingVideoCache.set(() -> cacheVideoInBackground(item, mediaUrl));
+                }
+            } else {
+                BufferedImage scaled = prepareImage(item);
+                if (scaled == null) return false;
+                shownVersion = item.displayVersion;
+                // Normalmente já veio pronta do prefetch: a troca na tela é só setIcon
+                javax.swing.SwingUtilities.invokeLater(() -> showImage(scaled));
+            }
+        } catch (java.rmi.RemoteException ex) {
+            throw ex;
+        } catch (java.io.IOException ex) {
+            System.err.println("Erro ao obter conteúdo " + item.relativePath + ": " + ex.getMessage());
+            return false;
+        }
+        schedulePrefetch(screenWidth, screenHeight);
+        return true;
+    }
+
+    /**
+     * Grava em segundo plano no cache em disco um vídeo que tocou por streaming, para que a próxima volta do
+     * loop toque do arquivo local. Chamado quando a exibição dele termina (ver {@link #stopVideoIfPlaying()}):
+     * a cópia é uma segunda requisição a /media e não disputa a rede com o player. Se outro vídeo começar a
+     * tocar por streaming, a cópia é interrompida e fica para a próxima exibição. O MD5 é conferido antes de publicar.
+     */
+    private void cacheVideoInBackground(ItemExibicao item, String mediaUrl) {
+        String key = item.contentKey();
+        // Só originais: o MD5 conferido é o do descritor (hash do arquivo enviado)
+        if (item.renditionHeight != 0 || !cache.cabeNoDisco(item.sizeBytes) || !videoCacheFills.add(key)) return;
+        videoCacheFiller.execute(() -> {
+            java.net.HttpURLConnection conn = null;
+            try {
+                conn = (java.net.HttpURLConnection) java.net.URI.create(mediaUrl).toURL().openConnection();
+                // Registrada antes de conferir streamingVideo: ou esta tarefa desiste, ou abortVideoCacheFill a corta
+                videoCacheConn.set(conn);
+                if (streamingVideo) return;
+                conn.setConnectTimeout(5_000);
+                conn.setReadTimeout(30_000);
+                if (conn.getResponseCode() != 200) return;
+                try (java.io.InputStream in = conn.getInputStream()) {
+                    if (cache.gravar(key, extensionOf(item), in, item.contentHash) == null) {
+                        System.err.println("[DISPLAY] Cópia de " + item.relativePath + " para o cache descartada: hash não confere");
+                    }
+                }
+            } catch (java.io.IOException ex) {
+                // Só otimização: a próxima exibição tenta de novo (interrompida por outro streaming não é falha)
+                if (videoCacheConn.get() == conn) System.err.println("[DISPLAY] Falha ao copiar vídeo para o cache: " + ex.getMessage());
+            } finally {
+                if (conn != null) { videoCacheConn.compareAndSet(conn, null); conn.disconnect(); }
+                videoCacheFills.remove(key);
+            }
+        });
+    }
+
+    // Corta a cópia em andamento (o arquivo parcial é descartado pelo cache)
+    private void abortVideoCacheFill() {
+        java.net.HttpURLConnection conn = videoCacheConn.getAndSet(null);
+        if (conn != null) conn.disconnect();
+    }
+
+    /**
+     * Baixa, decodifica e escala para a tela o próximo item previsto pelo servidor, em segundo plano,
+     * deixando-o no cache de memória. Vídeos não são pré-baixados (tocam por streaming). Uma previsão por vez.
+     */
+    private void schedulePrefetch(int width, int height) {
+        if (!prefetchBusy.compareAndSet(false, true)) return;
+        prefetcher.execute(() -> {
+            try {
+                ItemExibicao next = remote.peekNextDisplayItem(width, height);
+                if (next != null && !next.isVideo()) prepareImage(next);
+            } catch (java.io.IOException | RuntimeException ex) {
+                // Prefetch é só otimização: a troca real busca de novo se preciso
+            } finally {
+                prefetchBusy.set(false);
+            }
+        });
+    }
+
+    // Imagem do item escalada para o tamanho atual do label (memória → disco → servidor); null se ilegível
+    private BufferedImage prepareImage(ItemExibicao item) throws java.io.IOException {
+        int lw = imageLabel.getWidth(), lh = imageLabel.getHeight();
+        String key = item.contentKey() + "@" + lw + "x" + lh;
+        BufferedImage scaled = cache.imagem(key);
+        if (scaled != null) return scaled;
+        Path file = contentFile(item);
+        if (file == null) return null;
+        BufferedImage img = ImageIO.read(file.toFile());
+        if (img == null) return null;
+        scaled = scaleToFit(img, Math.max(1, lw), Math.max(1, lh));
+        // Antes do primeiro layout o label ainda não tem tamanho: não guarda essa versão
+        if (lw > 0 && lh > 0) cache.guardarImagem(key, scaled);
+        return scaled;
+    }
+
+    // Conteúdo do item no cache em disco; baixa pelo hash só se ainda não estiver lá
+    private Path contentFile(ItemExibicao item) throws java.io.IOException {
+        return cache.arquivo(item.contentKey(), extensionOf(item), () -> remote.getContentByHash(item.contentHash, item.renditionHeight));
+    }
+
+    private static String extensionOf(ItemExibicao item) {
+        if (item.renditionHeight > 0) return ".jpg";
+        String rel = item.relativePath;
+        if (rel != null && rel.lastIndexOf('.') > rel.lastIndexOf('/')) return rel.substring(rel.lastIndexOf('.')).toLowerCase(java.util.Locale.ROOT);
+        return ".bin";
+    }
+
+    // Escala mantendo a proporção com Graphics2D (reduções grandes em etapas de 2x, bilinear)
+    private static BufferedImage scaleToFit(BufferedImage img, int lw, int lh) {
+        double scale = Math.min((double) lw / img.getWidth(), (double) lh / img.getHeight());
+        int nw = Math.max(1, (int) Math.round(img.getWidth() * scale));
+        int nh = Math.max(1, (int) Math.round(img.getHeight() * scale));
+        BufferedImage cur = img;
+        int cw = img.getWidth(), ch = img.getHeight();
+        do {
+            cw = nw < cw ? Math.max(nw, cw / 2) : nw;
+            ch = nh < ch ? Math.max(nh, ch / 2) : nh;
+            BufferedImage next = new BufferedImage(cw, ch, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(cur, 0, 0, cw, ch, Color.BLACK, null);
+            g.dispose();
+            cur = next;
+        } while (cw != nw || ch != nh);
+        return cur;
+    }
+
+    private void showImage(BufferedImage scaled) {
         imageLabel.setIcon(new ImageIcon(scaled));
         imageLabel.setText("");
         stopVideoIfPlaying();
@@ -286,7 +421,7 @@ public class Visualizador {
         }
         Visualizador dv = new Visualizador();
     if (wantFs && !dv.fullscreen) dv.toggleFullscreen();
-    // Usa o polling padrão otimizado (300ms)
+    // Atualizações por long-poll (sem polling periódico)
     dv.start(host);
     }
 
@@ -354,114 +489,92 @@ public class Visualizador {
     }
 
     /**
-     * Reproduz vídeo a partir dos bytes recebidos do servidor
-     * Cria arquivo temporário e usa JavaFX MediaPlayer para reprodução
+     * Reproduz vídeo a partir de uma URI (arquivo no cache local ou URL HTTP do servidor)
+     * Usa JavaFX MediaPlayer para reprodução (precisa de arquivo ou URL, não aceita bytes)
      * 
-     * @param data bytes do arquivo de vídeo (MP4)
+     * @param uri file:// do cache do viewer ou http://.../media?hash=... (streaming com Range)
      */
-    private void playVideoFromBytes(byte[] data) {
+    private void playVideo(String uri) {
         // Para qualquer vídeo que esteja tocando antes de iniciar novo
         stopVideoIfPlaying();
         
-        try {
-            // Cria arquivo temporário .mp4 para o JavaFX conseguir reproduzir
-            // JavaFX MediaPlayer precisa de um arquivo ou URL, não pode usar bytes diretamente
-            File tmp = File.createTempFile("pf_", ".mp4");
-            
-            // Escreve os bytes recebidos no arquivo temporário
-            try (FileOutputStream fos = new FileOutputStream(tmp)) { 
-                fos.write(data); 
-            }
-            
-            // Guarda referência do arquivo para deletar depois
-            currentTempFile = tmp;
-            
-            // Converte caminho do arquivo para URI (formato que JavaFX entende)
-            String uri = tmp.toURI().toString();
-            
-            // Executa no thread do JavaFX (obrigatório para componentes JavaFX)
-            Platform.runLater(() -> {
-                try {
-                    // Cria objeto Media a partir da URI do arquivo
-                    Media media = new Media(uri);
-                    
-                    // Cria player para reproduzir a mídia
-                    MediaPlayer player = new MediaPlayer(media);
-                    
-                    // Cria visualizador que exibe o vídeo na tela
-                    MediaView view = new MediaView(player);
-                    
-                    // Mantém proporção original do vídeo (não distorce)
-                    view.setPreserveRatio(true);
-                    
-                    // Usa StackPane para centralizar vídeo quando há letterboxing
-                    StackPane root = new StackPane(view);
-                    
-                    // Cria cena JavaFX com o painel root
-                    // Fundo preto para evitar bordas cinzas no vídeo
-                    Scene scene = new Scene(root, javafx.scene.paint.Color.BLACK);
-                    root.setStyle("-fx-background-color: black;");
-                    
-                    // Faz vídeo se adaptar ao tamanho do painel, mantendo proporção
-                    view.fitWidthProperty().bind(root.widthProperty());
-                    view.fitHeightProperty().bind(root.heightProperty());
-                    
-                    // Coloca a cena no painel JavaFX que está integrado ao Swing
-                    videoPanel.setScene(scene);
-                    
-                    // Aplica configurações de reprodução do servidor (loop/pausa)
-                    final boolean[] loopFlag = new boolean[]{false};
-                    try {
-                        // Busca configurações atuais do servidor
-                        PlaybackConfig cfg = remote != null ? remote.getPlaybackConfig() : null;
-                        if (cfg != null) {
-                            loopFlag[0] = cfg.loopVideo;
-                            
-                            // Define se vídeo deve repetir ou tocar uma vez só
-                            player.setCycleCount(loopFlag[0] ? MediaPlayer.INDEFINITE : 1);
-                            
-                            // Inicia pausado ou reproduzindo conforme configuração
-                            if (cfg.videoPaused) player.pause(); 
-                            else player.play();
-                            // Mudo
-                            try { player.setMute(cfg.muted); } catch (RuntimeException ignore) {}
-                        }
-                    } catch (java.rmi.RemoteException ignore) {
-                        // Se não conseguir acessar servidor, toca normalmente
-                        player.play();
-                    }
-                    
-                    // Define o que fazer quando vídeo terminar
-                    player.setOnEndOfMedia(() -> {
-                        // Se não está em loop, solicita próximo item do servidor
-                        if (!loopFlag[0]) {
-                            new Thread(() -> {
-                                try { if (remote != null) remote.next(); } catch (java.rmi.RemoteException ignore) {}
-                            }, "pf-next").start();
-                        }
-                        // Se está em loop, o MediaPlayer.INDEFINITE já cuida da repetição
-                    });
-                    
-                    // Guarda referência do player para controles posteriores
-                    currentPlayer = player;
-                    
-                    // Limpa imagem anterior do painel de imagens
-                    imageLabel.setIcon(null);
-                    imageLabel.setText("");
+        // Executa no thread do JavaFX (obrigatório para componentes JavaFX)
+        Platform.runLater(() -> {
+            try {
+                // Cria objeto Media a partir da URI do arquivo
+                Media media = new Media(uri);
+                
+                // Cria player para reproduzir a mídia
+                MediaPlayer player = new MediaPlayer(media);
+                
+                // Cria visualizador que exibe o vídeo na tela
+                MediaView view = new MediaView(player);
+                
+                // Mantém proporção original do vídeo (não distorce)
+                view.setPreserveRatio(true);
+                
+                // Usa StackPane para centralizar vídeo quando há letterboxing
+                StackPane root = new StackPane(view);
+                
+                // Cria cena JavaFX com o painel root
+                // Fundo preto para evitar bordas cinzas no vídeo
+                Scene scene = new Scene(root, javafx.scene.paint.Color.BLACK);
+                root.setStyle("-fx-background-color: black;");
+                
+                // Faz vídeo se adaptar ao tamanho do painel, mantendo proporção
+                view.fitWidthProperty().bind(root.widthProperty());
+                view.fitHeightProperty().bind(root.heightProperty());
+                
+                // Coloca a cena no painel JavaFX que está integrado ao Swing
+                videoPanel.setScene(scene);
+                
+                // Aplica configurações de reprodução do servidor (loop/pausa)
+                final boolean[] loopFlag = new boolean[]{false};
+                // Usa a última configuração recebida pelo long-poll (sem RMI na thread do JavaFX)
+                PlaybackConfig cfg = playbackConfig;
+                if (cfg != null) {
+                    loopFlag[0] = cfg.loopVideo;
                     
-                    // Alterna para mostrar painel de vídeo em vez do de imagem
-                    centerCards.show(centerPanel, "video");
+                    // Define se vídeo deve repetir ou tocar uma vez só
+                    player.setCycleCount(loopFlag[0] ? MediaPlayer.INDEFINITE : 1);
                     
-                } catch (RuntimeException ex) {
-                    // Se JavaFX falhar, limpa e mantém na imagem
-                    System.err.println("Erro ao reproduzir vídeo: " + ex.getMessage());
-                    currentPlayer = null;
+                    // Inicia pausado ou reproduzindo conforme configuração
+                    if (cfg.videoPaused) player.pause(); 
+                    else player.play();
+                    // Mudo
+                    try { player.setMute(cfg.muted); } catch (RuntimeException ignore) {}
+                } else {
+                    // Configuração ainda não recebida: toca normalmente
+                    player.play();
                 }
-            });
-        } catch (java.io.IOException ex) {
-            // Erro ao criar arquivo temporário
-            System.err.println("Erro ao criar arquivo temporário para vídeo: " + ex.getMessage());
-        }
+                
+                // Define o que fazer quando vídeo terminar
+                player.setOnEndOfMedia(() -> {
+                    // Se não está em loop, solicita próximo item do servidor
+                    if (!loopFlag[0]) {
+                        new Thread(() -> {
+                            try { if (remote != null) remote.next(); } catch (java.rmi.RemoteException ignore) {}
+                        }, "pf-next").start();
+                    }
+                    // Se está em loop, o MediaPlayer.INDEFINITE já cuida da repetição
+                });
+                
+                // Guarda referência do player para controles posteriores
+                currentPlayer = player;
+                
+                // Limpa imagem anterior do painel de imagens
+                imageLabel.setIcon(null);
+                imageLabel.setText("");
+                
+                // Alterna para mostrar painel de vídeo em vez do de imagem
+                centerCards.show(centerPanel, "video");
+                
+            } catch (RuntimeException ex) {
+                // Se JavaFX falhar, limpa e mantém na imagem
+                System.err.println("Erro ao reproduzir vídeo: " + ex.getMessage());
+                currentPlayer = null;
+            }
+        });
     }
 
     /**
@@ -557,16 +670,6 @@ public class Visualizador {
         } catch (java.rmi.RemoteException ignore) {}
     }
 
-    private static String hashBytes(byte[] data) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] digest = md.digest(data);
-            return HexFormat.of().formatHex(digest);
-        } catch (java.security.NoSuchAlgorithmException ignore) {
-            return null;
-        }
-    }
-
     private void stopVideoIfPlaying() {
         try {
             if (currentPlayer != null) {
@@ -577,11 +680,11 @@ public class Visualizador {
                 });
             }
         } catch (RuntimeException ignore) {}
-        if (currentTempFile != null) {
-            try { currentTempFile.delete(); } catch (RuntimeException ignore) {}
-            currentTempFile = null;
-        }
         try { Platform.runLater(() -> videoPanel.setScene(null)); } catch (RuntimeException ignore) {}
+        // Fim da exibição do vídeo: a rede está livre para copiar para o cache o que tocou por streaming
+        streamingVideo = false;
+        Runnable fill = pendingVideoCache.getAndSet(null);
+        if (fill != null) fill.run();
     }
 
     private static BufferedImage createQrImage(String text, int size) throws WriterException {
@@ -0,0 +1,71 @@
+package br.com.photoframe.servidor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+class CatalogoOrdenadoTest {
+
+    @Test
+    void consultasDepoisDeRemoverSeguemAOrdem() {
+        CatalogoOrdenado c = new CatalogoOrdenado();
+        for (String k : List.of("2024/01/03/c.jpg", "2024/01/01/a.jpg", "2024/01/02/b.jpg", "2024/01/04/d.jpg")) c.add(k);
+
+        assertTrue(c.remove("2024/01/02/b.jpg"));
+        assertFalse(c.remove("2024/01/02/b.jpg"));
+
+        assertEquals(3, c.size());
+        assertEquals(1, c.rank("2024/01/02/b.jpg"));  // posição que a chave removida ocuparia
+        assertEquals(1, c.rank("2024/01/03/c.jpg"));
+        assertEquals("2024/01/03/c.jpg", c.higher("2024/01/01/a.jpg"));
+        assertEquals("2024/01/03/c.jpg", c.ceiling("2024/01/02/b.jpg"));
+        assertEquals("2024/01/01/a.jpg", c.lower("2024/01/03/c.jpg"));
+        assertEquals("2024/01/04/d.jpg", c.get(2));
+        assertNull(c.higher("2024/01/04/d.jpg"));
+        assertNull(c.ceiling("2024/01/05/"));
+    }
+
+    @Test
+    void addRepetidoNaoDuplica() {
+        CatalogoOrdenado c = new CatalogoOrdenado();
+        assertTrue(c.add("2024/01/01/a.jpg"));
+        assertFalse(c.add("2024/01/01/a.jpg"));
+        assertEquals(1, c.size());
+        c.clear();
+        assertTrue(c.isEmpty());
+        assertNull(c.first());
+    }
+
+    @Test
+    void operacoesAleatoriasBatemComTreeSet() {
+        Random r = new Random(42);
+        CatalogoOrdenado c = new CatalogoOrdenado();
+        TreeSet<String> ref = new TreeSet<>();
+        for (int i = 0; i < 5000; i++) {
+            String k = String.format("2024/%02d/%02d/%04d.jpg", 1 + r.nextInt(12), 1 + r.nextInt(28), r.nextInt(200));
+            if (r.nextInt(3) == 0) assertEquals(ref.remove(k), c.remove(k));
+            else assertEquals(ref.add(k), c.add(k));
+
+            assertEquals(ref.size(), c.size());
+            assertEquals(ref.higher(k), c.higher(k));
+            assertEquals(ref.ceiling(k), c.ceiling(k));
+            assertEquals(ref.lower(k), c.lower(k));
+            assertEquals(ref.headSet(k).size(), c.rank(k));
+            if (!ref.isEmpty()) {
+                int idx = r.nextInt(ref.size());
+                assertEquals(new ArrayList<>(ref).get(idx), c.get(idx));
+            }
+        }
+        assertEquals(new ArrayList<>(ref), c.toList());
+        assertEquals(ref.isEmpty() ? null : ref.first(), c.first());
+        assertEquals(ref.isEmpty() ? null : ref.last(), c.last());
+    }
+}
@@ -0,0 +1,95 @@
+package br.com.photoframe.servidor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ControleAdmissaoTest {
+    private static final long MB = 1024 * 1024;
+
+    @AfterEach
+    void limparPropriedades() {
+        System.clearProperty("upload.inflightMb");
+        System.clearProperty("upload.perClient");
+    }
+
+    @Test
+    void limitePorCliente() {
+        System.setProperty("upload.perClient", "2");
+        ControleAdmissao c = new ControleAdmissao(16);
+        ControleAdmissao.Vaga a = c.admitir("10.0.0.1", 1);
+        ControleAdmissao.Vaga b = c.admitir("10.0.0.1", 1);
+        assertNotNull(a);
+        assertNotNull(b);
+        assertNull(c.admitir("10.0.0.1", 1));
+        assertNotNull(c.admitir("10.0.0.2", 1)); // outro cliente não é afetado
+
+        a.close();
+        assertNotNull(c.admitir("10.0.0.1", 1));
+    }
+
+    @Test
+    void limiteGlobalDeixaThreadsLivres() {
+        System.setProperty("upload.perClient", "100");
+        ControleAdmissao c = new ControleAdmissao(6); // 6 threads HTTP - 2 livres = 4 uploads
+        List<ControleAdmissao.Vaga> vagas = new ArrayList<>();
+        for (int i = 0; i < 4; i++) vagas.add(c.admitir("c" + i, 1));
+        vagas.forEach(v -> assertNotNull(v));
+        assertNull(c.admitir("c9", 1));
+        vagas.get(0).close();
+        assertNotNull(c.admitir("c9", 1));
+
+        assertNotNull(new ControleAdmissao(1).admitir("x", 1)); // nunca menos de um
+    }
+
+    @Test
+    void orcamentoDeBytesEmVoo() {
+        System.setProperty("upload.inflightMb", "100000");
+        ControleAdmissao grande = new ControleAdmissao(16);
+        assertEquals(100000 * MB, grande.limiteBytes());
+
+        System.setProperty("upload.inflightMb", "1"); // abaixo do limite de um arquivo: sobe para MAX_BYTES
+        ControleAdmissao c = new ControleAdmissao(16);
+        long limite = c.limiteBytes();
+        assertEquals(ServidorGaleria.MAX_BYTES, limite);
+
+        ControleAdmissao.Vaga a = c.admitir("a", limite - 10);
+        assertNotNull(a);
+        assertNull(c.admitir("b", 11));
+        ControleAdmissao.Vaga b = c.admitir("b", 10);
+        assertNotNull(b);
+        b.close();
+        a.close();
+        assertNotNull(c.admitir("c", limite));
+    }
+
+    @Test
+    void fecharDuasVezesNaoDevolveEmDobro() {
+        System.setProperty("upload.perClient", "1");
+        ControleAdmissao c = new ControleAdmissao(3); // um upload por vez
+        ControleAdmissao.Vaga a = c.admitir("x", 1);
+        a.close();
+        a.close();
+        ControleAdmissao.Vaga b = c.admitir("x", 1);
+        assertNotNull(b);
+        assertNull(c.admitir("y", 1)); // o segundo close não liberou uma vaga extra
+        assertTrue(c.estado().startsWith("1/1 upload(s)"), c.estado());
+    }
+
+    @Test
+    void recusaNaoReservaNada() {
+        System.setProperty("upload.perClient", "1");
+        ControleAdmissao c = new ControleAdmissao(16);
+        ControleAdmissao.Vaga a = c.admitir("x", 1);
+        for (int i = 0; i < 10; i++) assertNull(c.admitir("x", 1));
+        a.close();
+        assertTrue(c.estado().startsWith("0/14 upload(s), 0/"), c.estado());
+    }
+}
@@ -0,0 +1,124 @@
+package br.com.photoframe.servidor;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.net.httpserver.HttpServer;
+
+/** {@code ServidorHttpUploader.sendFileRange}: Range, If-Range, 304 e HEAD num servidor HTTP local. */
+class EnvioIntervaloTest {
+    private static final String ETAG = "\"0123abcd\"";
+    private static final byte[] CONTEUDO = new byte[1000];
+
+    @TempDir
+    static Path dir;
+    private static HttpServer server;
+    private static URI uri;
+    private static final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeAll
+    static void iniciar() throws IOException {
+        for (int i = 0; i < CONTEUDO.length; i++) CONTEUDO[i] = (byte) i;
+        Path file = Files.write(dir.resolve("v.mp4"), CONTEUDO);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/media", ex -> ServidorHttpUploader.sendFileRange(ex, file, "video/mp4", ETAG, "no-cache"));
+        server.start();
+        uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/media");
+    }
+
+    @AfterAll
+    static void parar() {
+        server.stop(0);
+    }
+
+    private static HttpResponse<byte[]> get(String... headers) throws Exception {
+        HttpRequest.Builder b = HttpRequest.newBuilder(uri);
+        if (headers.length > 0) b.headers(headers);
+        return client.send(b.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static void assertParcial(HttpResponse<byte[]> r, int inicio, int fim) {
+        assertEquals(206, r.statusCode());
+        assertEquals("bytes " + inicio + "-" + fim + "/" + CONTEUDO.length, r.headers().firstValue("Content-Range").orElse(null));
+        assertArrayEquals(Arrays.copyOfRange(CONTEUDO, inicio, fim + 1), r.body());
+    }
+
+    @Test
+    void semRangeEnviaTudo() throws Exception {
+        HttpResponse<byte[]> r = get();
+        assertEquals(200, r.statusCode());
+        assertArrayEquals(CONTEUDO, r.body());
+        assertEquals(ETAG, r.headers().firstValue("ETag").orElse(null));
+        assertEquals("bytes", r.headers().firstValue("Accept-Ranges").orElse(null));
+        assertFalse(r.headers().firstValue("Content-Range").isPresent());
+    }
+
+    @Test
+    void formasDeIntervalo() throws Exception {
+        assertParcial(get("Range", "bytes=2-5"), 2, 5);
+        assertParcial(get("Range", "bytes=990-"), 990, 999);
+        assertParcial(get("Range", "bytes=-3"), 997, 999);
+        assertParcial(get("Range", "bytes=0-5000"), 0, 999);   // fim além do arquivo é limitado
+        assertParcial(get("Range", "bytes=-5000"), 0, 999);    // sufixo maior que o arquivo
+        assertParcial(get("Range", "bytes=999-999"), 999, 999);
+    }
+
+    @Test
+    void intervaloInsatisfazivelResponde416() throws Exception {
+        for (String range : new String[] { "bytes=1000-", "bytes=1000-1005", "bytes=-0" }) {
+            HttpResponse<byte[]> r = get("Range", range);
+            assertEquals(416, r.statusCode(), range);
+            assertEquals("bytes */1000", r.headers().firstValue("Content-Range").orElse(null), range);
+        }
+    }
+
+    @Test
+    void rangeQueNaoSeSabeAtenderViraArquivoInteiro() throws Exception {
+        for (String range : new String[] { "bytes=0-1,5-6", "bytes=a-b", "items=0-5", "bytes=", "bytes=5-2", "bytes=5-3" }) {
+            HttpResponse<byte[]> r = get("Range", range);
+            assertEquals(200, r.statusCode(), range);
+            assertArrayEquals(CONTEUDO, r.body(), range);
+        }
+    }
+
+    @Test
+    void ifRange() throws Exception {
+        assertParcial(get("Range", "bytes=10-19", "If-Range", ETAG), 10, 19);
+        HttpResponse<byte[]> outraVersao = get("Range", "bytes=10-19", "If-Range", "\"outra\"");
+        assertEquals(200, outraVersao.statusCode());
+        assertArrayEquals(CONTEUDO, outraVersao.body());
+    }
+
+    @Test
+    void ifNoneMatchResponde304() throws Exception {
+        HttpResponse<byte[]> r = get("If-None-Match", ETAG);
+        assertEquals(304, r.statusCode());
+        assertEquals(0, r.body().length);
+    }
+
+    @Test
+    void headSoCabecalhos() throws Exception {
+        HttpRequest req = HttpRequest.newBuilder(uri).method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .header("Range", "bytes=100-199").build();
+        HttpResponse<byte[]> r = client.send(req, HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(206, r.statusCode());
+        assertEquals("100", r.headers().firstValue("Content-Length").orElse(null));
+        assertEquals(0, r.body().length);
+    }
+}
@@ -0,0 +1,80 @@
+package br.com.photoframe.servidor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class FiltroDataTest {
+
+    @Test
+    void diaEmQualquerFormatoViraOMesmoPrefixo() {
+        for (String v : new String[] { "20250810", "2025-08-10", "2025/08/10", "2025/08/10/", " 2025-08-10 " }) {
+            FiltroData f = FiltroData.parse(v);
+            assertNotNull(f, v);
+            assertEquals("2025/08/10/", f.texto);
+            assertTrue(f.contem("2025/08/10/20250810_120000_a.jpg"));
+            assertFalse(f.contem("2025/08/11/20250811_000000_b.jpg"));
+            assertFalse(f.contem("2025/08/09/20250809_235959_c.jpg"));
+        }
+    }
+
+    @Test
+    void semanaIsoVaiDeSegundaADomingo() {
+        FiltroData f = FiltroData.parse("2025-W32");
+        assertEquals("2025/08/04/..2025/08/10/", f.texto);
+        assertTrue(f.contem("2025/08/04/x.jpg"));
+        assertTrue(f.contem("2025/08/10/x.jpg"));
+        assertFalse(f.contem("2025/08/03/x.jpg"));
+        assertFalse(f.contem("2025/08/11/x.jpg"));
+    }
+
+    @Test
+    void semanaIsoQueCruzaAViradaDoAno() {
+        assertEquals("2024/12/30/..2025/01/05/", FiltroData.parse("2025-W01").texto);
+        assertEquals("2020/12/28/..2021/01/03/", FiltroData.parse("2020-W53").texto);
+        assertNull(FiltroData.parse("2021-W53")); // 2021 só tem 52 semanas ISO
+        assertNull(FiltroData.parse("2025-W00"));
+    }
+
+    @Test
+    void mesEAno() {
+        FiltroData mes = FiltroData.parse("2025-08");
+        assertEquals("2025/08/", mes.texto);
+        assertTrue(mes.contem("2025/08/31/x.jpg"));
+        assertFalse(mes.contem("2025/09/01/x.jpg"));
+        assertEquals("2025/08/", FiltroData.parse("2025/08").texto);
+        assertNull(FiltroData.parse("2025-13"));
+
+        FiltroData ano = FiltroData.parse("2025");
+        assertEquals("2025/", ano.texto);
+        assertTrue(ano.contem("2025/12/31/x.jpg"));
+        assertFalse(ano.contem("2026/01/01/x.jpg"));
+    }
+
+    @Test
+    void intervaloIncluiAsDuasPontas() {
+        FiltroData f = FiltroData.parse("2025-08-30..2025-09");
+        assertEquals("2025/08/30/..2025/09/", f.texto);
+        assertTrue(f.contem("2025/08/30/x.jpg"));
+        assertTrue(f.contem("2025/09/30/x.jpg"));
+        assertFalse(f.contem("2025/08/29/x.jpg"));
+        assertFalse(f.contem("2025/10/01/x.jpg"));
+
+        FiltroData semanas = FiltroData.parse("2025-W01 .. 2025-W02");
+        assertEquals("2024/12/30/..2025/01/12/", semanas.texto);
+    }
+
+    @Test
+    void entradasInvalidas() {
+        assertNull(FiltroData.parse(null));
+        assertNull(FiltroData.parse("   "));
+        assertNull(FiltroData.parse("ontem"));
+        assertNull(FiltroData.parse("2025-09..2025-08")); // início depois do fim
+        assertNull(FiltroData.parse("2025-08.."));
+        assertNull(FiltroData.parse("..2025-08"));
+    }
+}
@@ -0,0 +1,129 @@
+package br.com.photoframe.servidor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JournalIndicesTest {
+    @TempDir
+    Path dir;
+
+    private JournalIndices novo() {
+        return new JournalIndices(dir.resolve(".owners.tsv"), dir.resolve(".hashes.tsv"), dir.resolve(".index.journal"));
+    }
+
+    private Map<String, Map<String, String>> carregar() {
+        Map<String, String> donos = new HashMap<>();
+        Map<String, String> hashes = new HashMap<>();
+        JournalIndices j = novo();
+        j.carregar(donos, hashes);
+        j.fechar();
+        return Map.of("donos", donos, "hashes", hashes);
+    }
+
+    @Test
+    void replayAplicaAsMutacoesEmOrdem() {
+        JournalIndices j = novo();
+        j.carregar(new HashMap<>(), new HashMap<>());
+        j.registrarDono("2024/01/01/a.jpg", "cli-1");
+        j.registrarHash("2024/01/01/a.jpg", "AAAA");
+        j.registrarDono("2024/01/01/b.jpg", "cli-2");
+        j.registrarHash("2024/01/01/b.jpg", "BBBB");
+        j.registrarHash("2024/01/01/a.jpg", "A2A2"); // regravado (ex.: arquivo substituído)
+        j.registrarRemocao("2024/01/01/b.jpg");
+        assertEquals(6, j.entradas());
+        j.fechar();
+
+        Map<String, Map<String, String>> m = carregar();
+        assertEquals(Map.of("2024/01/01/a.jpg", "cli-1"), m.get("donos"));
+        assertEquals(Map.of("2024/01/01/a.jpg", "A2A2"), m.get("hashes"));
+    }
+
+    @Test
+    void loteGravaDonosEHashes() {
+        JournalIndices j = novo();
+        j.registrarLote(Map.of("x.jpg", "c", "y.jpg", "c"), Map.of("x.jpg", "11", "y.jpg", "22"));
+        assertEquals(4, j.entradas());
+        j.fechar();
+
+        Map<String, Map<String, String>> m = carregar();
+        assertEquals(Map.of("x.jpg", "c", "y.jpg", "c"), m.get("donos"));
+        assertEquals(Map.of("x.jpg", "11", "y.jpg", "22"), m.get("hashes"));
+    }
+
+    @Test
+    void tabENovaLinhaNaoQuebramOFormato() {
+        JournalIndices j = novo();
+        j.registrarDono("a\tb.jpg", "cli\nx");
+        j.fechar();
+        assertEquals(Map.of("a_b.jpg", "cli_x"), carregar().get("donos"));
+    }
+
+    @Test
+    void rotacaoECompactacao() throws IOException {
+        JournalIndices j = novo();
+        Map<String, String> donos = new HashMap<>();
+        Map<String, String> hashes = new HashMap<>();
+        j.carregar(donos, hashes);
+        j.registrarDono("a.jpg", "c1"); donos.put("a.jpg", "c1");
+        j.registrarHash("a.jpg", "AA"); hashes.put("a.jpg", "AA");
+
+        j.rotacionar();
+        assertEquals(0, j.entradas());
+        assertFalse(Files.exists(dir.resolve(".index.journal")));
+        assertTrue(Files.exists(dir.resolve(".index.journal.old")));
+
+        // Mutação entre a rotação e a gravação do snapshot vai para o journal novo
+        j.registrarHash("b.jpg", "BB");
+        j.gravarSnapshot(new HashMap<>(donos), new HashMap<>(hashes));
+        j.fechar();
+        assertFalse(Files.exists(dir.resolve(".index.journal.old")));
+        assertEquals(1, Files.readAllLines(dir.resolve(".index.journal")).size());
+
+        Map<String, Map<String, String>> m = carregar();
+        assertEquals(Map.of("a.jpg", "c1"), m.get("donos"));
+        assertEquals(Map.of("a.jpg", "AA", "b.jpg", "BB"), m.get("hashes"));
+    }
+
+    @Test
+    void quedaNoMeioDaCompactacaoReaplicaOOld() {
+        JournalIndices j = novo();
+        j.registrarHash("a.jpg", "A1");
+        j.rotacionar(); // snapshot nunca gravado: o .old fica
+        j.registrarHash("a.jpg", "A2");
+        j.rotacionar(); // segunda rotação anexa ao .old existente, preservando a ordem
+        j.registrarHash("b.jpg", "B1");
+        j.fechar();
+
+        assertEquals(Map.of("a.jpg", "A2", "b.jpg", "B1"), carregar().get("hashes"));
+    }
+
+    @Test
+    void ultimaLinhaTruncadaEIgnorada() throws IOException {
+        JournalIndices j = novo();
+        j.registrarHash("a.jpg", "0123456789ABCDEF0123456789ABCDEF");
+        j.fechar();
+        // Queda durante a escrita: linha completa nos campos, mas sem o '\n' final
+        Files.write(dir.resolve(".index.journal"), "H\tb.jpg\t0123".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        assertEquals(Map.of("a.jpg", "0123456789ABCDEF0123456789ABCDEF"), carregar().get("hashes"));
+
+        // O resto foi cortado do arquivo: o próximo append começa numa linha nova
+        JournalIndices j2 = novo();
+        j2.carregar(new HashMap<>(), new HashMap<>());
+        j2.registrarHash("c.jpg", "CC");
+        j2.fechar();
+        assertEquals(Map.of("a.jpg", "0123456789ABCDEF0123456789ABCDEF", "c.jpg", "CC"), carregar().get("hashes"));
+    }
+}
@@ -0,0 +1,141 @@
+package br.com.photoframe.servidor;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import br.com.photoframe.compartilhado.core.HashUtil;
+
+class LoteUploadTest {
+    @TempDir
+    Path dir;
+
+    private static void quadro(ByteArrayOutputStream corpo, String nome, byte[] dados) throws IOException {
+        corpo.write((dados.length + "\t" + nome + "\n").getBytes(StandardCharsets.UTF_8));
+        corpo.write(dados);
+    }
+
+    private long arquivosNoDiretorio() throws IOException {
+        try (Stream<Path> s = Files.list(dir)) { return s.count(); }
+    }
+
+    @Test
+    void recebeQuadrosEmOrdemComMd5() throws IOException {
+        byte[] a = "imagem-a".getBytes(StandardCharsets.UTF_8);
+        byte[] b = new byte[200_000]; // maior que o buffer de leitura
+        Arrays.fill(b, (byte) 7);
+        ByteArrayOutputStream corpo = new ByteArrayOutputStream();
+        quadro(corpo, "a.jpg", a);
+        quadro(corpo, "b.png", b);
+
+        LoteUpload lote = LoteUpload.receber(new ByteArrayInputStream(corpo.toByteArray()), dir, 1 << 20);
+
+        assertEquals(2, lote.arquivos.size());
+        LoteUpload.Arquivo pa = lote.arquivos.get(0), pb = lote.arquivos.get(1);
+        assertEquals("a.jpg", pa.nome);
+        assertEquals(HashUtil.md5Hex(a), pa.md5);
+        assertArrayEquals(a, Files.readAllBytes(pa.tmp));
+        assertEquals("b.png", pb.nome);
+        assertEquals(b.length, pb.bytes);
+        assertEquals(HashUtil.md5Hex(b), pb.md5);
+        assertTrue(pa.tmp.getFileName().toString().startsWith("."));
+
+        lote.descartar();
+        assertEquals(0, arquivosNoDiretorio());
+    }
+
+    @Test
+    void quadrosInvalidosSaoRejeitadosSemAbortarOLote() throws IOException {
+        ByteArrayOutputStream corpo = new ByteArrayOutputStream();
+        quadro(corpo, "virus.exe", new byte[] { 1, 2, 3 });
+        quadro(corpo, "vazio.jpg", new byte[0]);
+        quadro(corpo, "grande.jpg", new byte[101]);
+        quadro(corpo, "ok.jpg", new byte[] { 9 });
+
+        LoteUpload lote = LoteUpload.receber(new ByteArrayInputStream(corpo.toByteArray()), dir, 100);
+
+        assertEquals(4, lote.arquivos.size());
+        assertNull(lote.arquivos.get(0).tmp);
+        assertNull(lote.arquivos.get(1).tmp);
+        assertNull(lote.arquivos.get(2).tmp);
+        assertNotNull(lote.arquivos.get(3).tmp);
+        assertEquals(1, arquivosNoDiretorio());
+        lote.descartar();
+    }
+
+    @Test
+    void descartarPreservaOsJaPublicados() throws IOException {
+        ByteArrayOutputStream corpo = new ByteArrayOutputStream();
+        quadro(corpo, "a.jpg", new byte[] { 1 });
+        quadro(corpo, "b.jpg", new byte[] { 2 });
+        LoteUpload lote = LoteUpload.receber(new ByteArrayInputStream(corpo.toByteArray()), dir, 100);
+
+        lote.arquivos.get(0).relativePath = "2024/01/01/a.jpg"; // publicado (movido para fora na vida real)
+        lote.descartar();
+        assertTrue(Files.exists(lote.arquivos.get(0).tmp));
+        assertEquals(1, arquivosNoDiretorio());
+    }
+
+    @Test
+    void corpoTruncadoDescartaOLoteInteiro() throws IOException {
+        ByteArrayOutputStream corpo = new ByteArrayOutputStream();
+        quadro(corpo, "a.jpg", new byte[] { 1, 2, 3 });
+        corpo.write("10\tb.jpg\n".getBytes(StandardCharsets.UTF_8));
+        corpo.write(new byte[] { 1, 2, 3 }); // faltam 7 bytes
+
+        assertThrows(IOException.class, () -> LoteUpload.receber(new ByteArrayInputStream(corpo.toByteArray()), dir, 100));
+        assertEquals(0, arquivosNoDiretorio());
+    }
+
+    @Test
+    void cabecalhoTruncadoOuMalformado() throws IOException {
+        ByteArrayOutputStream semFimDeLinha = new ByteArrayOutputStream();
+        quadro(semFimDeLinha, "a.jpg", new byte[] { 1 });
+        semFimDeLinha.write("3\tb.j".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> LoteUpload.receber(new ByteArrayInputStream(semFimDeLinha.toByteArray()), dir, 100));
+
+        for (String cabecalho : new String[] { "abc\tx.jpg\n", "-1\tx.jpg\n", "5 x.jpg\n", "x".repeat(2000) + "\n" }) {
+            byte[] corpo = cabecalho.getBytes(StandardCharsets.UTF_8);
+            assertThrows(IOException.class, () -> LoteUpload.receber(new ByteArrayInputStream(corpo), dir, 100), cabecalho);
+        }
+        assertEquals(0, arquivosNoDiretorio());
+    }
+
+    @Test
+    void corpoVazioELoteVazio() throws IOException {
+        LoteUpload lote = LoteUpload.receber(new ByteArrayInputStream(new byte[0]), dir, 100);
+        assertTrue(lote.arquivos.isEmpty());
+    }
+
+    @Test
+    void limiteDeArquivosPorLote() {
+        ByteArrayOutputStream corpo = new ByteArrayOutputStream();
+        for (int i = 0; i <= LoteUpload.MAX_ARQUIVOS; i++) corpo.writeBytes(("0\tf" + i + ".jpg\n").getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> LoteUpload.receber(new ByteArrayInputStream(corpo.toByteArray()), dir, 100));
+    }
+
+    @Test
+    void nomeEhSanitizado() throws IOException {
+        ByteArrayOutputStream corpo = new ByteArrayOutputStream();
+        quadro(corpo, "../../etc/x.jpg", new byte[] { 1 });
+        LoteUpload lote = LoteUpload.receber(new ByteArrayInputStream(corpo.toByteArray()), dir, 100);
+        String nome = lote.arquivos.get(0).nome;
+        assertTrue(!nome.contains("/") && !nome.contains(".."), nome);
+        lote.descartar();
+    }
+}
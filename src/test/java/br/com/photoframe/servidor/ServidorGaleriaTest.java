@@ -0,0 +1,410 @@
+package br.com.photoframe.servidor;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import br.com.photoframe.compartilhado.core.HashUtil;
+
+/**
+ * {@link ServidorGaleria} contra uma pasta de uploads temporária. O conteúdo de cada arquivo é o próprio
+ * nome, então os bytes entregues ao display dizem qual arquivo foi escolhido.
+ */
+class ServidorGaleriaTest {
+    @TempDir
+    Path dir;
+    private ServidorGaleria servidor;
+
+    @AfterEach
+    void encerrar() {
+        if (servidor != null) servidor.encerrar();
+    }
+
+    private ServidorGaleria iniciar() throws Exception {
+        servidor = new ServidorGaleria(dir);
+        return servidor;
+    }
+
+    private Path gravar(String rel, String conteudo) throws Exception {
+        Path p = dir.resolve(rel);
+        Files.createDirectories(p.getParent());
+        return Files.write(p, conteudo.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String enviar(String nome) throws Exception {
+        return enviar(nome, nome);
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Condições que dependem de threads do servidor (observador, fila de comandos)
+    private static void aguardar(BooleanSupplier condicao, String descricao) throws Exception {
+        long limite = System.currentTimeMillis() + 10_000;
+        while (!condicao.getAsBoolean()) {
+            if (System.currentTimeMillis() > limite) fail("tempo esgotado: " + descricao);
+            Thread.sleep(20);
+        }
+    }
+
+    private String enviar(String nome, String conteudo) throws Exception {
+        assertTrue(servidor.uploadFile(nome, bytes(conteudo), "cli"));
+        return servidor.getFileListByClient("cli").stream().filter(r -> r.endsWith("_" + nome)).findFirst().orElseThrow();
+    }
+
+    private static String texto(byte[] b) {
+        return b == null ? null : new String(b, StandardCharsets.UTF_8);
+    }
+
+    // next()/previous() passam pela fila de comandos: espera a troca que eles liberam
+    private String aposComando(Runnable comando) throws Exception {
+        comando.run();
+        long limite = System.currentTimeMillis() + 5000;
+        byte[] b;
+        while ((b = servidor.getNextDisplayFile()) == null && System.currentTimeMillis() < limite) Thread.sleep(10);
+        return texto(b);
+    }
+
+    private String proximo() throws Exception {
+        return aposComando(servidor::next);
+    }
+
+    private String anterior() throws Exception {
+        return aposComando(servidor::previous);
+    }
+
+    @Test
+    void rotacaoCircularEAnterior() throws Exception {
+        gravar("2024/01/01/a.jpg", "a");
+        gravar("2024/01/01/b.jpg", "b");
+        gravar("2024/01/02/c.png", "c");
+        gravar("2024/01/02/notas.heic", "h"); // não exibível: pulado
+        iniciar();
+
+        assertEquals("a", texto(servidor.getNextDisplayFile()));
+        assertEquals("b", proximo());
+        assertEquals("c", proximo());
+        assertEquals("a", proximo()); // volta ao início
+        assertEquals("c", anterior()); // anterior do primeiro é o último
+        assertEquals("b", anterior());
+        assertEquals("c", proximo());
+    }
+
+    @Test
+    void proximoComFiltroDeData() throws Exception {
+        gravar("2023/12/31/z.jpg", "z");
+        gravar("2024/01/01/a.jpg", "a");
+        gravar("2024/01/01/b.heic", "h");
+        gravar("2024/01/02/c.jpg", "c");
+        gravar("2024/01/08/d.jpg", "d");
+        iniciar();
+
+        servidor.setDisplayDateFilter("2024-01-01..2024-01-02");
+        assertEquals("a", texto(servidor.getNextDisplayFile()));
+        assertEquals("c", proximo());
+        assertEquals("a", proximo()); // volta ao início do intervalo, não do catálogo
+
+        servidor.setDisplayDateFilter("2024-W02"); // 08 a 14/01
+        assertEquals("d", proximo());
+        assertEquals("d", proximo());
+
+        // Consulta avulsa tem o próprio cursor por filtro
+        assertEquals("z", texto(servidor.getNextDisplayFileByDate("2023-12-31")));
+        assertEquals("a", texto(servidor.getNextDisplayFileByDate("2024-01")));
+        assertEquals("c", texto(servidor.getNextDisplayFileByDate("2024-01")));
+        assertNull(servidor.getNextDisplayFileByDate("2024-02"));
+    }
+
+    @Test
+    void insercaoERemocaoNaoDeslocamOCursor() throws Exception {
+        iniciar();
+        String a = enviar("a.jpg");
+        String b = enviar("b.jpg");
+        enviar("c.jpg");
+
+        assertEquals("a.jpg", texto(servidor.getNextDisplayFile()));
+        assertEquals("b.jpg", proximo());
+        // O cursor é a chave de b: remover b e inserir depois dele não muda a posição da rotação
+        assertTrue(servidor.deleteFile("cli", b));
+        servidor.uploadFile("d.jpg", "d.jpg".getBytes(StandardCharsets.UTF_8), "cli");
+        assertEquals("c.jpg", proximo());
+        assertEquals("d.jpg", proximo());
+        assertEquals("a.jpg", proximo());
+        assertTrue(servidor.getFileList().contains(a));
+    }
+
+    @Test
+    void arquivoSobrescritoEReindexadoEmVezDeIsolado() throws Exception {
+        iniciar();
+        String rel = enviar("a.jpg");
+        assertEquals("a.jpg", texto(servidor.getNextDisplayFile()));
+
+        // Regravado antes de o observador entregá-lo: tamanho/mtime diferem do carimbo da última conferência
+        Files.write(dir.resolve(rel), bytes("nova versão"));
+        assertEquals("nova versão", proximo());
+        assertTrue(servidor.quarantineFindings().isEmpty());
+        assertTrue(servidor.getFileList().contains(rel));
+        assertArrayEquals(bytes("nova versão"), servidor.getContentByHash(HashUtil.md5Hex(bytes("nova versão")), 0));
+        assertNull(servidor.getContentByHash(HashUtil.md5Hex(bytes("a.jpg")), 0));
+    }
+
+    @Test
+    void observadorIndexaAlteraERemoveCopiasExternas() throws Exception {
+        iniciar();
+        aguardar(servidor::watchingUploads, "observador iniciado");
+
+        String rel = "2024/05/05/externo.jpg";
+        gravar(rel, "v1"); // pastas novas: o observador lista o conteúdo ao registrá-las
+        aguardar(() -> servidor.getFileList().contains(rel), "arquivo indexado");
+        aguardar(() -> servidor.verifiedMd5(rel) != null, "hash registrado");
+        assertEquals(HashUtil.md5Hex(bytes("v1")), servidor.verifiedMd5(rel));
+
+        gravar(rel, "versão 2");
+        String v2 = HashUtil.md5Hex(bytes("versão 2"));
+        aguardar(() -> v2.equals(servidor.verifiedMd5(rel)), "hash novo");
+
+        Files.delete(dir.resolve(rel));
+        aguardar(() -> !servidor.getFileList().contains(rel), "arquivo removido");
+        assertTrue(servidor.quarantineFindings().isEmpty());
+    }
+
+    @Test
+    void primeiroHashDaExibicaoEhRegistradoEPersistido() throws Exception {
+        gravar("2024/01/01/a.jpg", "a"); // copiado com o servidor parado: sem hash no índice
+        iniciar();
+        String md5 = HashUtil.md5Hex(bytes("a"));
+        assertNull(servidor.getContentByHash(md5, 0));
+
+        assertEquals("a", texto(servidor.getNextDisplayFile()));
+        assertEquals(md5, servidor.verifiedMd5("2024/01/01/a.jpg"));
+        servidor.encerrar();
+
+        // Regravado com o servidor parado: o hash persistido no journal diverge e o arquivo vai para a quarentena
+        gravar("2024/01/01/a.jpg", "b");
+        iniciar();
+        assertNull(servidor.getNextDisplayFile());
+        assertEquals("2024/01/01/a.jpg", servidor.quarantineFindings().get(0).rel);
+    }
+
+    @Test
+    void divergenciaVaiParaQuarentenaECaminhoRestauradoVoltaAExibir() throws Exception {
+        iniciar();
+        String rel = enviar("a.jpg");
+        Path arquivo = dir.resolve(rel);
+        FileTime mtime = Files.getLastModifiedTime(arquivo);
+
+        // Bit rot: mesmo tamanho e mtime, conteúdo diferente (só o scrub percebe)
+        Files.write(arquivo, bytes("x.jpg"));
+        Files.setLastModifiedTime(arquivo, mtime);
+        assertTrue(servidor.startIntegrityScrub());
+        aguardar(() -> !servidor.quarantineFindings().isEmpty(), "arquivo isolado");
+        Quarentena.Achado achado = servidor.quarantineFindings().get(0);
+        assertEquals(rel, achado.rel);
+        assertEquals(HashUtil.md5Hex(bytes("x.jpg")), achado.atual);
+        assertTrue(Files.exists(dir.resolve(".quarantine").resolve(rel)));
+        assertTrue(servidor.getFileList().isEmpty());
+        assertNull(servidor.getNextDisplayFile());
+
+        // Cópia boa devolvida ao mesmo caminho: volta ao catálogo, sai dos achados e é exibida
+        aguardar(servidor::watchingUploads, "observador iniciado");
+        gravar(rel, "a.jpg");
+        aguardar(() -> servidor.getFileList().contains(rel), "arquivo restaurado");
+        assertTrue(servidor.quarantineFindings().isEmpty());
+        assertEquals("a.jpg", texto(servidor.getNextDisplayFile()));
+        assertEquals(rel, servidor.getFileListByClient("cli").get(0)); // dono mantido durante a quarentena
+        servidor.encerrar();
+
+        // Após reiniciar, a cópia isolada volta a constar como achado, mas não esconde o arquivo do caminho
+        iniciar();
+        assertEquals(1, servidor.quarantineFindings().size());
+        assertEquals(rel, servidor.peekNextDisplayItem(0, 0).relativePath);
+        assertEquals("a.jpg", texto(servidor.getNextDisplayFile()));
+    }
+
+    @Test
+    void uploadEmPartesRetomavelECommitIdempotente() throws Exception {
+        iniciar();
+        byte[] dados = bytes("0123456789");
+        String md5 = HashUtil.md5Hex(dados);
+        String id = servidor.beginUpload("v.mp4", dados.length, "cli");
+        assertEquals(4, servidor.appendUploadChunk(id, 0, Arrays.copyOfRange(dados, 0, 4)));
+        assertEquals(4, servidor.appendUploadChunk(id, 0, Arrays.copyOfRange(dados, 0, 4))); // repetido: ignorado
+        assertEquals(4, servidor.appendUploadChunk(id, 8, Arrays.copyOfRange(dados, 8, 10))); // fora de ordem
+        assertEquals(4, servidor.getUploadedLength(id));
+        assertFalse(servidor.commitUpload(id, md5)); // incompleto
+        assertEquals(10, servidor.appendUploadChunk(id, 4, Arrays.copyOfRange(dados, 4, 10)));
+
+        // Commits simultâneos (resposta perdida + repetição): todos confirmam, um só arquivo publicado
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            CountDownLatch largada = new CountDownLatch(1);
+            List<Future<Boolean>> commits = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                Callable<Boolean> commit = () -> { largada.await(); return servidor.commitUpload(id, md5); };
+                commits.add(pool.submit(commit));
+            }
+            largada.countDown();
+            for (Future<Boolean> f : commits) assertTrue(f.get());
+        } finally {
+            pool.shutdown();
+        }
+        assertTrue(servidor.commitUpload(id, md5));
+        assertEquals(1, servidor.getFileList().size());
+        assertEquals(10, servidor.getUploadedLength(id)); // sessão publicada conta como completa
+        String rel = servidor.getFileList().get(0);
+        assertArrayEquals(dados, Files.readAllBytes(dir.resolve(rel)));
+
+        // Hash divergente descarta a sessão
+        String outra = servidor.beginUpload("w.mp4", 1, "cli");
+        assertEquals(1, servidor.appendUploadChunk(outra, 0, new byte[] { 1 }));
+        assertFalse(servidor.commitUpload(outra, md5));
+        assertEquals(-1, servidor.getUploadedLength(outra));
+        assertEquals(1, servidor.getFileList().size());
+    }
+
+    @Test
+    void sessoesEmPartesReservamOOrcamentoDosUploadsHttp() throws Exception {
+        System.setProperty("upload.inflightMb", "1"); // sobe para MAX_BYTES: um arquivo grande ocupa tudo
+        try {
+            iniciar();
+        } finally {
+            System.clearProperty("upload.inflightMb");
+        }
+        assertNotNull(servidor.beginUpload("grande.mp4", ServidorGaleria.MAX_BYTES - 10, "cli"));
+        assertNull(servidor.beginUpload("b.jpg", 11, "cli"));
+        assertNull(servidor.admission().admitir("10.0.0.1", 11)); // mesmo orçamento do HTTP
+
+        byte[] dados = bytes("0123456789");
+        String id = servidor.beginUpload("c.jpg", dados.length, "cli");
+        assertNotNull(id);
+        assertNull(servidor.beginUpload("d.jpg", 1, "cli"));
+        servidor.appendUploadChunk(id, 0, dados);
+        assertTrue(servidor.commitUpload(id, HashUtil.md5Hex(dados)));
+        assertTrue(servidor.commitUpload(id, HashUtil.md5Hex(dados))); // repetição não devolve de novo
+
+        // Publicada: os bytes voltaram, mas só uma vez
+        String outra = servidor.beginUpload("e.jpg", dados.length, "cli");
+        assertNotNull(outra);
+        assertNull(servidor.beginUpload("f.jpg", 1, "cli"));
+        // Descartada por hash divergente: também devolve
+        servidor.appendUploadChunk(outra, 0, dados);
+        assertFalse(servidor.commitUpload(outra, HashUtil.md5Hex(bytes("x"))));
+        assertNotNull(servidor.beginUpload("g.jpg", dados.length, "cli"));
+    }
+
+    @Test
+    void lotesSimultaneosComNomesIguaisNaoSeSobrescrevem() throws Exception {
+        iniciar();
+        int lotes = 4, porLote = 25;
+        ExecutorService pool = Executors.newFixedThreadPool(lotes);
+        List<Future<LoteUpload>> resultados = new ArrayList<>();
+        try {
+            CountDownLatch largada = new CountDownLatch(1);
+            for (int l = 0; l < lotes; l++) {
+                ByteArrayOutputStream corpo = new ByteArrayOutputStream();
+                for (int i = 0; i < porLote; i++) {
+                    byte[] dados = bytes("lote " + l + " arquivo " + i);
+                    corpo.writeBytes(bytes(dados.length + "\tfoto.jpg\n"));
+                    corpo.writeBytes(dados);
+                }
+                Callable<LoteUpload> envio = () -> {
+                    largada.await();
+                    return servidor.uploadBatch(new ByteArrayInputStream(corpo.toByteArray()), "cli");
+                };
+                resultados.add(pool.submit(envio));
+            }
+            largada.countDown();
+            Set<String> caminhos = new HashSet<>();
+            for (Future<LoteUpload> f : resultados) {
+                for (LoteUpload.Arquivo a : f.get().arquivos) {
+                    assertTrue(caminhos.add(a.relativePath), a.relativePath);
+                    assertEquals(a.md5, HashUtil.md5Hex(dir.resolve(a.relativePath)));
+                }
+            }
+            assertEquals(lotes * porLote, caminhos.size());
+            assertEquals(caminhos, new HashSet<>(servidor.getFileListByClient("cli")));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void conferenciaDoSnapshotRemoveComJournalOQueSumiuComOServidorParado() throws Exception {
+        gravar("2024/01/01/a.jpg", "a");
+        gravar("2024/01/01/b.jpg", "b");
+        iniciar();
+        assertEquals("a", texto(servidor.getNextDisplayFile())); // registra o hash de a
+        servidor.encerrar();
+        assertTrue(Files.exists(dir.resolve(".catalog.bin")));
+
+        Files.delete(dir.resolve("2024/01/01/a.jpg"));
+        gravar("2024/01/02/c.jpg", "c");
+        iniciar(); // catálogo do snapshot, conferido com o disco em segundo plano
+        aguardar(() -> servidor.getFileList().equals(List.of("2024/01/01/b.jpg", "2024/01/02/c.jpg")), "catálogo conferido");
+        assertTrue(Files.readAllLines(dir.resolve(".index.journal")).contains("D\t2024/01/01/a.jpg"));
+        assertNull(servidor.getContentByHash(HashUtil.md5Hex(bytes("a")), 0));
+        assertEquals("b", texto(servidor.getNextDisplayFile()));
+    }
+
+    // Versões de exibição e miniaturas fictícias (o conteúdo não é imagem de verdade; só a existência importa)
+    private Path versao(String conteudo) throws Exception {
+        return gravar(".renditions/" + HashUtil.md5Hex(bytes(conteudo)).toLowerCase(Locale.ROOT) + "_1080.jpg", "jpeg");
+    }
+
+    private Path miniatura(String conteudo) throws Exception {
+        return gravar(".thumbs/" + HashUtil.md5Hex(bytes(conteudo)).toLowerCase(Locale.ROOT) + ".jpg", "jpeg");
+    }
+
+    @Test
+    void versoesEMiniaturasSaoApagadasQuandoOUltimoArquivoDoConteudoSai() throws Exception {
+        iniciar();
+        String a1 = enviar("a1.jpg", "igual");
+        String a2 = enviar("a2.jpg", "igual");
+        String b = enviar("b.jpg", "outro");
+        Path va = versao("igual");
+        Path vb = versao("outro");
+        Path ma = miniatura("igual");
+        Path mb = miniatura("outro");
+
+        assertTrue(servidor.deleteFile("cli", a1));
+        assertTrue(Files.exists(va)); // a2 ainda tem o mesmo conteúdo
+        assertTrue(Files.exists(ma));
+        assertTrue(servidor.deleteFile("cli", a2));
+        assertFalse(Files.exists(va));
+        assertFalse(Files.exists(ma));
+
+        // Sobrescrito: o conteúdo antigo não está em mais nenhum caminho
+        Files.write(dir.resolve(b), bytes("novo conteúdo"));
+        assertEquals("novo conteúdo", texto(servidor.getNextDisplayFile()));
+        assertFalse(Files.exists(vb));
+        assertFalse(Files.exists(mb));
+    }
+}
@@ -0,0 +1,108 @@
+package br.com.photoframe.servidor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Rotas de upload do {@link ServidorHttpUploader} contra um {@link ServidorGaleria} numa pasta temporária. */
+class ServidorHttpUploaderTest {
+    @TempDir
+    Path dir;
+    private ServidorGaleria servidor;
+    private ServidorHttpUploader http;
+
+    @AfterEach
+    void encerrar() {
+        if (http != null) http.parar();
+        if (servidor != null) servidor.encerrar();
+        System.clearProperty("upload.perClient");
+    }
+
+    private static final class Resposta {
+        int status;
+        final Map<String, String> cabecalhos = new HashMap<>();
+        String corpo;
+        boolean conexaoFechada;
+    }
+
+    // HTTP cru: o cliente manda o corpo inteiro numa thread à parte, como um navegador no meio do envio
+    private Resposta enviarUpload(int bytes, boolean conferirFechamento) throws Exception {
+        try (Socket s = new Socket("127.0.0.1", http.porta())) {
+            s.setSoTimeout(5000);
+            OutputStream out = s.getOutputStream();
+            out.write(("POST /upload?filename=a.jpg&clientId=cli HTTP/1.1\r\nHost: localhost\r\nContent-Length: " + bytes
+                    + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            Thread envio = new Thread(() -> {
+                try {
+                    byte[] bloco = new byte[8192];
+                    for (int enviados = 0; enviados < bytes; enviados += bloco.length) out.write(bloco, 0, Math.min(bloco.length, bytes - enviados));
+                    out.flush();
+                } catch (IOException recusado) {
+                    // Conexão fechada pelo servidor no meio do corpo
+                }
+            });
+            envio.start();
+
+            InputStream in = s.getInputStream();
+            BufferedReader r = new BufferedReader(new InputStreamReader(in, StandardCharsets.ISO_8859_1));
+            Resposta resp = new Resposta();
+            resp.status = Integer.parseInt(r.readLine().split(" ")[1]);
+            for (String linha; !(linha = r.readLine()).isEmpty(); ) {
+                int i = linha.indexOf(':');
+                resp.cabecalhos.put(linha.substring(0, i).trim().toLowerCase(Locale.ROOT), linha.substring(i + 1).trim());
+            }
+            char[] corpo = new char[Integer.parseInt(resp.cabecalhos.get("content-length"))];
+            for (int lidos = 0; lidos < corpo.length; ) lidos += r.read(corpo, lidos, corpo.length - lidos);
+            resp.corpo = new String(corpo);
+            if (conferirFechamento) try {
+                resp.conexaoFechada = r.read() == -1;
+            } catch (SocketTimeoutException aberta) {
+                resp.conexaoFechada = false;
+            } catch (IOException reset) {
+                resp.conexaoFechada = true; // fechada com corpo não lido do lado do servidor
+            }
+            envio.join(5000);
+            return resp;
+        }
+    }
+
+    @Test
+    void uploadRecusadoPelaAdmissaoFechaAConexaoSemLerOCorpo() throws Exception {
+        System.setProperty("upload.perClient", "1");
+        servidor = new ServidorGaleria(dir);
+        http = new ServidorHttpUploader(servidor);
+        http.iniciar(0);
+
+        ControleAdmissao.Vaga ocupada = servidor.admission().admitir("127.0.0.1", 1);
+        assertNotNull(ocupada);
+        Resposta recusa = enviarUpload(4 * 1024 * 1024, true);
+        assertEquals(503, recusa.status);
+        assertEquals(String.valueOf(ControleAdmissao.RETRY_AFTER_S), recusa.cabecalhos.get("retry-after"));
+        assertEquals("close", recusa.cabecalhos.get("connection"));
+        assertTrue(recusa.corpo.contains("OCUPADO"), recusa.corpo);
+        assertTrue(recusa.conexaoFechada);
+        assertTrue(servidor.getFileList().isEmpty());
+
+        ocupada.close();
+        Resposta aceito = enviarUpload(1000, false);
+        assertEquals(200, aceito.status, aceito.corpo);
+        assertEquals(1, servidor.getFileList().size());
+    }
+}
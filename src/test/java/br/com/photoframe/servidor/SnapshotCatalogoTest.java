@@ -0,0 +1,84 @@
+package br.com.photoframe.servidor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SnapshotCatalogoTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void gravaECarregaOsMesmosCaminhos() {
+        List<String> rels = List.of(
+                "2023/12/31/20231231_235959_fim.jpg",
+                "2024/01/01/20240101_000000_a.jpg",
+                "2024/01/01/20240101_000000_ab.jpg",
+                "2024/01/01/20240101_000001_a.mp4",
+                "2024/01/02/20240102_101010_ção 😀.png",
+                "solto.jpg");
+        SnapshotCatalogo s = new SnapshotCatalogo(dir.resolve(".catalog.bin"));
+        s.gravar(rels);
+        assertEquals(rels, s.carregar());
+    }
+
+    @Test
+    void catalogoVazioEGrande() {
+        SnapshotCatalogo s = new SnapshotCatalogo(dir.resolve(".catalog.bin"));
+        s.gravar(List.of());
+        assertEquals(List.of(), s.carregar());
+
+        List<String> muitos = new ArrayList<>();
+        for (int d = 1; d <= 28; d++) {
+            for (int i = 0; i < 500; i++) muitos.add(String.format("2024/02/%02d/202402%02d_%06d_f.jpg", d, d, i));
+        }
+        s.gravar(muitos);
+        assertEquals(muitos, s.carregar());
+    }
+
+    @Test
+    void rejeitaArquivoComCrcErrado() throws IOException {
+        Path arquivo = dir.resolve(".catalog.bin");
+        SnapshotCatalogo s = new SnapshotCatalogo(arquivo);
+        s.gravar(List.of("2024/01/01/20240101_000000_a.jpg", "2024/01/01/20240101_000000_b.jpg"));
+        byte[] dados = Files.readAllBytes(arquivo);
+        dados[dados.length - 12] ^= 0x01; // último byte do corpo, antes do CRC
+        Files.write(arquivo, dados);
+        assertNull(s.carregar());
+    }
+
+    @Test
+    void rejeitaArquivoTruncadoOuAusente() throws IOException {
+        Path arquivo = dir.resolve(".catalog.bin");
+        SnapshotCatalogo s = new SnapshotCatalogo(arquivo);
+        assertNull(s.carregar());
+
+        s.gravar(List.of("2024/01/01/20240101_000000_a.jpg", "2024/01/01/20240101_000000_b.jpg"));
+        byte[] dados = Files.readAllBytes(arquivo);
+        Files.write(arquivo, java.util.Arrays.copyOf(dados, dados.length - 3));
+        assertNull(s.carregar());
+    }
+
+    @Test
+    void varrerIgnoraOcultosEOrdena() throws IOException {
+        Files.createDirectories(dir.resolve("2024/01/02"));
+        Files.createDirectories(dir.resolve("2024/01/01"));
+        Files.createDirectories(dir.resolve(".thumbs"));
+        Files.createDirectories(dir.resolve("2024/01/01/.parts"));
+        Files.write(dir.resolve("2024/01/02/b.jpg"), new byte[] { 1 });
+        Files.write(dir.resolve("2024/01/01/a.png"), new byte[] { 1 });
+        Files.write(dir.resolve("2024/01/01/.upload-x.part"), new byte[] { 1 });
+        Files.write(dir.resolve("2024/01/01/.parts/c.jpg"), new byte[] { 1 });
+        Files.write(dir.resolve("2024/01/01/notas.txt"), new byte[] { 1 });
+        Files.write(dir.resolve(".thumbs/d.jpg"), new byte[] { 1 });
+        assertEquals(List.of("2024/01/01/a.png", "2024/01/02/b.jpg"), SnapshotCatalogo.varrer(dir));
+    }
+}